@@ -0,0 +1,211 @@
+package com.stelladk.arclib;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+
+import androidx.core.content.ContextCompat;
+
+import com.stelladk.arclib.core.ArcSpec;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
+/**
+ * Immutable result of parsing the attributes of an Arc widget.
+ * Views inflated with the same theme, style, default style attribute and
+ * Arc attributes written in the layout share one parsed instance, so rows
+ * of a list only resolve their attributes once.
+ * The cache is dropped when the configuration changes.
+ *
+ * @see ArcRenderer#loadAttributes(Context, AttributeSet, int)
+ */
+final class ArcAttributes {
+    private final static String TAG = "ArcAttributes";
+
+    private final static WeakHashMap<Resources.Theme, HashMap<StyleKey, ArcAttributes>> layouts = new WeakHashMap<>();
+    private final static WeakHashMap<Resources.Theme, HashMap<StyleKey, ArcAttributes>> buttons = new WeakHashMap<>();
+
+    final ArcSpec spec;
+    final boolean stroke;
+    final int strokeColor;
+    final float strokeWidth;
+    final int strokeAlignment;
+    final float strokeDashLength, strokeDashGap;
+    final boolean strokeGradient;
+    final int strokeStartColor, strokeEndColor;
+    final float strokeGradientAngle;
+
+    /**
+     * Background of ArcButtons, either a drawable resource or a color when the resource is 0
+     */
+    final int backgroundResource;
+    final int backgroundColor;
+
+    private ArcAttributes(Context context, AttributeSet attrs, int defStyleAttr, boolean button){
+        TypedArray a = context.getTheme().obtainStyledAttributes(attrs, R.styleable.ArcLayout, defStyleAttr, 0);
+        try{
+            //Default Values
+            int arcType = a.getInteger(R.styleable.ArcLayout_ArcType, ArcShape.NONE);
+            int outerAxis = a.getInteger(R.styleable.ArcLayout_OuterAxis, ArcShape.Y_AXIS);
+            float arcRadius = a.getDimension(R.styleable.ArcLayout_ArcRadius, -1);
+
+            spec = new ArcSpec(a.getInteger(R.styleable.ArcLayout_TopLeftArc, arcType),
+                    a.getInteger(R.styleable.ArcLayout_TopRightArc, arcType),
+                    a.getInteger(R.styleable.ArcLayout_BottomLeftArc, arcType),
+                    a.getInteger(R.styleable.ArcLayout_BottomRightArc, arcType),
+                    a.getInteger(R.styleable.ArcLayout_TopLeftOuterAxis, outerAxis),
+                    a.getInteger(R.styleable.ArcLayout_TopRightOuterAxis, outerAxis),
+                    a.getInteger(R.styleable.ArcLayout_BottomLeftOuterAxis, outerAxis),
+                    a.getInteger(R.styleable.ArcLayout_BottomRightOuterAxis, outerAxis),
+                    a.getDimension(R.styleable.ArcLayout_TopLeftRadius, arcRadius),
+                    a.getDimension(R.styleable.ArcLayout_TopRightRadius, arcRadius),
+                    a.getDimension(R.styleable.ArcLayout_BottomLeftRadius, arcRadius),
+                    a.getDimension(R.styleable.ArcLayout_BottomRightRadius, arcRadius));
+
+            stroke = a.getBoolean(R.styleable.ArcLayout_Stroke, false);
+            strokeColor = a.getColor(R.styleable.ArcLayout_StrokeColor, Color.WHITE);
+            strokeWidth = a.getDimension(R.styleable.ArcLayout_StrokeWidth, 10);
+            strokeAlignment = a.getInteger(R.styleable.ArcLayout_StrokeAlignment, ArcShape.STROKE_CENTER);
+            strokeDashLength = a.getDimension(R.styleable.ArcLayout_StrokeDashLength, 0);
+            strokeDashGap = a.getDimension(R.styleable.ArcLayout_StrokeDashGap, 0);
+            strokeGradient = a.hasValue(R.styleable.ArcLayout_StrokeStartColor) && a.hasValue(R.styleable.ArcLayout_StrokeEndColor);
+            strokeStartColor = a.getColor(R.styleable.ArcLayout_StrokeStartColor, Color.WHITE);
+            strokeEndColor = a.getColor(R.styleable.ArcLayout_StrokeEndColor, Color.WHITE);
+            strokeGradientAngle = a.getFloat(R.styleable.ArcLayout_StrokeGradientAngle, 0);
+        }finally {
+            a.recycle();
+        }
+
+        int resource = 0, color = Color.GRAY;
+        if(button){
+            a = context.getTheme().obtainStyledAttributes(attrs, R.styleable.ArcButton, defStyleAttr, 0);
+            try{
+                TypedValue value = new TypedValue();
+                if(a.getValue(R.styleable.ArcButton_background, value)){
+                    if(value.type == TypedValue.TYPE_STRING){
+                        resource = a.getResourceId(R.styleable.ArcButton_background, Color.GRAY);
+                    }else{
+                        color = value.data;
+                    }
+                }
+            }finally {
+                a.recycle();
+            }
+        }
+        backgroundResource = resource;
+        backgroundColor = color;
+    }
+
+    /**
+     * Get the parsed attributes of a view, from the cache when a view with the same attributes was parsed
+     * @param context context of the view
+     * @param attrs attributes of the view
+     * @param defStyleAttr default style attribute of the view
+     * @param button true to also parse the {@link R.styleable#ArcButton} background
+     * @return the shared attributes, which must not be modified
+     */
+    static ArcAttributes obtain(Context context, AttributeSet attrs, int defStyleAttr, boolean button){
+        ArcMemory.register(context);
+        Resources.Theme theme = context.getTheme();
+        StyleKey key = new StyleKey(attrs, defStyleAttr, button);
+        WeakHashMap<Resources.Theme, HashMap<StyleKey, ArcAttributes>> cache = button ? buttons : layouts;
+        synchronized(ArcAttributes.class){
+            HashMap<StyleKey, ArcAttributes> styles = cache.get(theme);
+            ArcAttributes attributes = styles != null ? styles.get(key) : null;
+            if(attributes != null) return attributes;
+        }
+
+        ArcAttributes attributes = new ArcAttributes(context, attrs, defStyleAttr, button);
+        synchronized(ArcAttributes.class){
+            HashMap<StyleKey, ArcAttributes> styles = cache.get(theme);
+            if(styles == null){
+                styles = new HashMap<>();
+                cache.put(theme, styles);
+            }
+            styles.put(key, attributes);
+        }
+        return attributes;
+    }
+
+    /**
+     * Forget all the parsed attributes, resources may resolve differently afterwards
+     */
+    static synchronized void clear(){
+        layouts.clear();
+        buttons.clear();
+    }
+
+    /**
+     * @return a new background drawable for an ArcButton
+     */
+    Drawable createBackground(Context context){
+        if(backgroundResource != 0){
+            return ContextCompat.getDrawable(context, backgroundResource);
+        }
+        return new ColorDrawable(backgroundColor);
+    }
+
+    /**
+     * Identifies the attributes of a view within a theme: its style, its default style attribute
+     * and the raw values of the Arc attributes written on the view itself
+     * References in the raw values are resource ids, which resolve the same way within a theme.
+     */
+    private final static class StyleKey {
+        private final int style, defStyleAttr;
+        private final int[] names;
+        private final String[] values;
+
+        StyleKey(AttributeSet attrs, int defStyleAttr, boolean button){
+            this.style = attrs != null ? attrs.getStyleAttribute() : 0;
+            this.defStyleAttr = defStyleAttr;
+
+            int count = 0;
+            int length = attrs != null ? attrs.getAttributeCount() : 0;
+            int[] names = new int[length];
+            String[] values = new String[length];
+            for(int i = 0; i < length; i++){
+                int name = attrs.getAttributeNameResource(i);
+                if(name == 0 || !isArcAttribute(name, button)) continue;
+                names[count] = name;
+                values[count] = attrs.getAttributeValue(i);
+                count++;
+            }
+            this.names = Arrays.copyOf(names, count);
+            this.values = Arrays.copyOf(values, count);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) return true;
+            if(!(o instanceof StyleKey)) return false;
+            StyleKey key = (StyleKey) o;
+            return style == key.style && defStyleAttr == key.defStyleAttr
+                    && Arrays.equals(names, key.names) && Arrays.equals(values, key.values);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = style;
+            result = 31 * result + defStyleAttr;
+            result = 31 * result + Arrays.hashCode(names);
+            result = 31 * result + Arrays.hashCode(values);
+            return result;
+        }
+    }
+
+    /**
+     * Check if an attribute is parsed by the Arc widgets, other attributes of the view are not part of the key
+     */
+    private static boolean isArcAttribute(int name, boolean button){
+        //Styleable arrays are sorted by attribute id
+        if(Arrays.binarySearch(R.styleable.ArcLayout, name) >= 0) return true;
+        return button && Arrays.binarySearch(R.styleable.ArcButton, name) >= 0;
+    }
+}
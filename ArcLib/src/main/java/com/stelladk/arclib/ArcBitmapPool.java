@@ -0,0 +1,148 @@
+package com.stelladk.arclib;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide pool of offscreen bitmaps shared by all Arc widgets.
+ * Idle bitmaps are bucketed by size and config and evicted in LRU order
+ * once the pool grows over its byte budget.
+ *
+ * @see ArcLayout
+ * @see ArcButton
+ */
+public final class ArcBitmapPool {
+    private final static String TAG = "ArcBitmapPool";
+
+    private final static LinkedHashMap<Key, ArrayDeque<Bitmap>> buckets = new LinkedHashMap<>(16, 0.75f, true);
+    private final static Key probe = new Key();
+
+    private static long maxSize = Runtime.getRuntime().maxMemory() / 16;
+    private static long size;
+
+    private ArcBitmapPool(){}
+
+    /**
+     * Get a cleared bitmap from the pool or allocate a new one
+     * @param width bitmap width
+     * @param height bitmap height
+     * @param config bitmap config
+     * @return a mutable transparent bitmap
+     */
+    public static synchronized Bitmap acquire(int width, int height, Bitmap.Config config){
+        ArrayDeque<Bitmap> bucket = buckets.get(probe.set(width, height, config));
+        if(bucket != null && !bucket.isEmpty()){
+            Bitmap bitmap = bucket.pop();
+            size -= bitmap.getByteCount();
+            bitmap.eraseColor(Color.TRANSPARENT);
+            ArcMetrics.onBufferAcquired(false, bitmap.getByteCount());
+            return bitmap;
+        }
+        Bitmap bitmap = Bitmap.createBitmap(width, height, config);
+        ArcMetrics.onBufferAcquired(true, bitmap.getByteCount());
+        return bitmap;
+    }
+
+    /**
+     * Return a bitmap to the pool
+     * The caller must not use the bitmap afterwards
+     * @param bitmap bitmap previously acquired
+     */
+    public static synchronized void release(Bitmap bitmap){
+        if(bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) return;
+
+        ArrayDeque<Bitmap> bucket = buckets.get(probe.set(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig()));
+        if(bucket == null){
+            bucket = new ArrayDeque<>();
+            buckets.put(new Key().set(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig()), bucket);
+        }
+        bucket.push(bitmap);
+        size += bitmap.getByteCount();
+
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Set the maximum size of the idle bitmaps kept in the pool
+     * @param bytes pool budget in bytes
+     */
+    public static synchronized void setMaxSize(long bytes){
+        maxSize = Math.max(0, bytes);
+        trimToSize(maxSize);
+    }
+
+    /**
+     * @return the pool budget in bytes
+     */
+    public static synchronized long getMaxSize(){
+        return maxSize;
+    }
+
+    /**
+     * @return the size of the idle bitmaps kept in the pool in bytes
+     */
+    public static synchronized long getSize(){
+        return size;
+    }
+
+    /**
+     * Evict all the idle bitmaps
+     */
+    public static synchronized void clear(){
+        trimToSize(0);
+    }
+
+    /**
+     * Evict idle bitmaps until the pool fits in the given size
+     * @param bytes size to trim the pool to
+     */
+    public static synchronized void trim(long bytes){
+        trimToSize(Math.max(0, bytes));
+    }
+
+    private static void trimToSize(long bytes){
+        Iterator<Map.Entry<Key, ArrayDeque<Bitmap>>> iterator = buckets.entrySet().iterator();
+        while(size > bytes && iterator.hasNext()){
+            ArrayDeque<Bitmap> bucket = iterator.next().getValue();
+            while(size > bytes && !bucket.isEmpty()){
+                Bitmap bitmap = bucket.removeLast();
+                size -= bitmap.getByteCount();
+                bitmap.recycle();
+            }
+            if(bucket.isEmpty()) iterator.remove();
+        }
+    }
+
+    private final static class Key {
+        private int width, height;
+        private Bitmap.Config config;
+
+        Key set(int width, int height, Bitmap.Config config){
+            this.width = width;
+            this.height = height;
+            this.config = config;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) return true;
+            if(!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return width == key.width && height == key.height && config == key.config;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = width;
+            result = 31 * result + height;
+            result = 31 * result + (config != null ? config.hashCode() : 0);
+            return result;
+        }
+    }
+}
@@ -1,42 +1,26 @@
 package com.stelladk.arclib;
 
 import android.content.Context;
-import android.content.res.TypedArray;
-import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.PorterDuff;
-import android.graphics.PorterDuffXfermode;
-import android.graphics.drawable.ColorDrawable;
-import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.util.AttributeSet;
-import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.View;
 
 import androidx.annotation.RequiresApi;
-import androidx.core.content.ContextCompat;
+
+import com.stelladk.arclib.core.ArcSpec;
 
 /**
  * Button with customisable arc corners
  *
  * @see ArcShape
+ * @see ArcRenderer
  */
 public class ArcButton extends androidx.appcompat.widget.AppCompatButton {
     private final static String TAG = "ArcButton";
 
-    private int layoutWidth, layoutHeight;
-
-    private Bitmap maskBitmap;
-    private Paint paint, maskPaint;
-
-    private int arcType, topLeftArc, topRightArc, bottomLeftArc, bottomRightArc;
-    private int outerAxis, topLeftOuterAxis, topRightOuterAxis, bottomLeftOuterAxis, bottomRightOuterAxis;
-    private float arcRadius, topLeftRadius, topRightRadius, bottomLeftRadius, bottomRightRadius;
-
-    private boolean stroke;
-    private int strokeColor;
-    private float strokeWidth;
+    private ArcRenderer renderer;
 
     public ArcButton(Context context) {
         super(context);
@@ -54,44 +38,20 @@ public class ArcButton extends androidx.appcompat.widget.AppCompatButton {
     }
 
     private void init(Context context, AttributeSet attrs, int defStyleAttr){
-
-        TypedArray a = context.getTheme().obtainStyledAttributes(attrs, R.styleable.ArcButton, defStyleAttr, 0);
-        try{
-            //Default Values
-            this.arcType = a.getInteger(R.styleable. ArcButton_ArcType, ArcShape.NONE);
-            this.outerAxis = a.getInteger(R.styleable.ArcButton_OuterAxis, ArcShape.Y_AXIS);
-            this.arcRadius = a.getDimension(R.styleable.ArcButton_ArcRadius, -1);
-
-            this.topLeftArc = a.getInteger(R.styleable.ArcButton_TopLeftArc, arcType);
-            this.topRightArc = a.getInteger(R.styleable.ArcButton_TopRightArc, arcType);
-            this.bottomLeftArc = a.getInteger(R.styleable.ArcButton_BottomLeftArc, arcType);
-            this.bottomRightArc = a.getInteger(R.styleable.ArcButton_BottomRightArc, arcType);
-
-            this.topLeftOuterAxis = a.getInteger(R.styleable.ArcButton_TopLeftOuterAxis, outerAxis);
-            this.topRightOuterAxis = a.getInteger(R.styleable.ArcButton_TopRightOuterAxis, outerAxis);
-            this.bottomLeftOuterAxis = a.getInteger(R.styleable.ArcButton_BottomLeftOuterAxis, outerAxis);
-            this.bottomRightOuterAxis = a.getInteger(R.styleable.ArcButton_BottomRightOuterAxis, outerAxis);
-
-            this.topLeftRadius = a.getDimension(R.styleable.ArcButton_TopLeftRadius, arcRadius);
-            this.topRightRadius = a.getDimension(R.styleable.ArcButton_TopRightRadius, arcRadius);
-            this.bottomLeftRadius = a.getDimension(R.styleable.ArcButton_BottomLeftRadius, arcRadius);
-            this.bottomRightRadius = a.getDimension(R.styleable.ArcButton_BottomRightRadius, arcRadius);
-
-            this.stroke = a.getBoolean(R.styleable.ArcButton_Stroke, false);
-            this.strokeColor = a.getColor(R.styleable.ArcButton_StrokeColor, Color.WHITE);
-            this.strokeWidth = a.getDimension(R.styleable.ArcButton_StrokeWidth, 10);
-
-            int resId = a.getResourceId(R.styleable.ArcButton_background, Color.GRAY);
-            Drawable drawable = getBackgroundAttr(getContext(), a, R.styleable.ArcButton_background, resId);
-            setBackgroundDrawable(drawable);
-        }finally {
-            a.recycle();
-        }
-
-        paint = new Paint(Paint.ANTI_ALIAS_FLAG);
-
-        maskPaint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
-        maskPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
+        renderer = new ArcRenderer(new ArcRenderer.Host() {
+            @Override
+            public View getView() {
+                return ArcButton.this;
+            }
+
+            @Override
+            public void drawContent(Canvas canvas) {
+                ArcButton.super.draw(canvas);
+            }
+        });
+        ArcAttributes attributes = ArcAttributes.obtain(context, attrs, defStyleAttr, true);
+        renderer.applyAttributes(attributes);
+        setBackgroundDrawable(attributes.createBackground(getContext()));
 
         setWillNotDraw(false);
     }
@@ -101,9 +61,7 @@ public class ArcButton extends androidx.appcompat.widget.AppCompatButton {
      * @param arc value that determines arc type
      */
     public void setTopLeftArcType(int arc){
-        if(arc == ArcShape.NONE) this.topLeftArc = arc;
-        if(arc <= ArcShape.INNER) this.topLeftArc = ArcShape.INNER;
-        if(arc >= ArcShape.OUTER) this.topLeftArc = ArcShape.OUTER;
+        renderer.setArc(ArcSpec.TOP_LEFT, arc);
     }
 
     /**
@@ -111,9 +69,7 @@ public class ArcButton extends androidx.appcompat.widget.AppCompatButton {
      * @param arc value that determines arc type
      */
     public void setTopRightArc(int arc){
-        if(arc == ArcShape.NONE) this.topRightArc = arc;
-        if(arc <= ArcShape.INNER) this.topRightArc = ArcShape.INNER;
-        if(arc >= ArcShape.OUTER) this.topRightArc = ArcShape.OUTER;
+        renderer.setArc(ArcSpec.TOP_RIGHT, arc);
     }
 
     /**
@@ -121,9 +77,7 @@ public class ArcButton extends androidx.appcompat.widget.AppCompatButton {
      * @param arc value that determines arc type
      */
     public void setBottomLeftArc(int arc){
-        if(arc == ArcShape.NONE) this.bottomLeftArc = arc;
-        if(arc <= ArcShape.INNER) this.bottomLeftArc = ArcShape.INNER;
-        if(arc >= ArcShape.OUTER) this.bottomLeftArc = ArcShape.OUTER;
+        renderer.setArc(ArcSpec.BOTTOM_LEFT, arc);
     }
 
     /**
@@ -131,9 +85,7 @@ public class ArcButton extends androidx.appcompat.widget.AppCompatButton {
      * @param arc value that determines arc type
      */
     public void setBottomRightArc(int arc){
-        if(arc == ArcShape.NONE) this.bottomRightArc = arc;
-        if(arc <= ArcShape.INNER) this.bottomRightArc = ArcShape.INNER;
-        if(arc >= ArcShape.OUTER) this.bottomRightArc = ArcShape.OUTER;
+        renderer.setArc(ArcSpec.BOTTOM_RIGHT, arc);
     }
 
     /**
@@ -141,8 +93,7 @@ public class ArcButton extends androidx.appcompat.widget.AppCompatButton {
      * @param axis outer arc axis
      */
     public void setTopLeftOuterAxis(int axis){
-        if(axis <= ArcShape.X_AXIS) this.topLeftOuterAxis = ArcShape.X_AXIS;
-        if(axis >= ArcShape.Y_AXIS) this.topLeftOuterAxis = ArcShape.Y_AXIS;
+        renderer.setOuterAxis(ArcSpec.TOP_LEFT, axis);
     }
 
     /**
@@ -150,8 +101,7 @@ public class ArcButton extends androidx.appcompat.widget.AppCompatButton {
      * @param axis outer arc axis
      */
     public void setTopRightOuterAxis(int axis){
-        if(axis <= ArcShape.X_AXIS) this.topRightOuterAxis = ArcShape.X_AXIS;
-        if(axis >= ArcShape.Y_AXIS) this.topRightOuterAxis = ArcShape.Y_AXIS;
+        renderer.setOuterAxis(ArcSpec.TOP_RIGHT, axis);
     }
 
     /**
@@ -159,8 +109,7 @@ public class ArcButton extends androidx.appcompat.widget.AppCompatButton {
      * @param axis outer arc axis
      */
     public void setBottomLeftOuterAxis(int axis){
-        if(axis <= ArcShape.X_AXIS) this.bottomLeftOuterAxis = ArcShape.X_AXIS;
-        if(axis >= ArcShape.Y_AXIS) this.bottomLeftOuterAxis = ArcShape.Y_AXIS;
+        renderer.setOuterAxis(ArcSpec.BOTTOM_LEFT, axis);
     }
 
     /**
@@ -168,8 +117,7 @@ public class ArcButton extends androidx.appcompat.widget.AppCompatButton {
      * @param axis outer arc axis
      */
     public void setBottomRightOuterAxis(int axis){
-        if(axis <= ArcShape.X_AXIS) this.bottomRightOuterAxis = ArcShape.X_AXIS;
-        if(axis >= ArcShape.Y_AXIS) this.bottomRightOuterAxis = ArcShape.Y_AXIS;
+        renderer.setOuterAxis(ArcSpec.BOTTOM_RIGHT, axis);
     }
 
     /**
@@ -177,7 +125,7 @@ public class ArcButton extends androidx.appcompat.widget.AppCompatButton {
      * @param radius arc radius
      */
     public void setTopLeftRadius(float radius){
-        this.topLeftRadius = radius;
+        renderer.setRadius(ArcSpec.TOP_LEFT, radius);
     }
 
     /**
@@ -185,7 +133,7 @@ public class ArcButton extends androidx.appcompat.widget.AppCompatButton {
      * @param radius arc radius
      */
     public void setTopRightRadius(float radius){
-        this.topRightRadius = radius;
+        renderer.setRadius(ArcSpec.TOP_RIGHT, radius);
     }
 
     /**
@@ -193,7 +141,7 @@ public class ArcButton extends androidx.appcompat.widget.AppCompatButton {
      * @param radius arc radius
      */
     public void setBottomLeftRadius(float radius){
-        this.bottomLeftRadius = radius;
+        renderer.setRadius(ArcSpec.BOTTOM_LEFT, radius);
     }
 
     /**
@@ -201,7 +149,7 @@ public class ArcButton extends androidx.appcompat.widget.AppCompatButton {
      * @param radius arc radius
      */
     public void setBottomRightRadius(float radius){
-        this.bottomRightRadius = radius;
+        renderer.setRadius(ArcSpec.BOTTOM_RIGHT, radius);
     }
 
     /**
@@ -209,7 +157,7 @@ public class ArcButton extends androidx.appcompat.widget.AppCompatButton {
      * @param stroke if true add stroke
      */
     public void setStroke(boolean stroke){
-        this.stroke = stroke;
+        renderer.setStroke(stroke);
     }
 
     /**
@@ -217,7 +165,7 @@ public class ArcButton extends androidx.appcompat.widget.AppCompatButton {
      * @param color stroke color
      */
     public void setStrokeColor(int color){
-        this.strokeColor = color;
+        renderer.setStrokeColor(color);
     }
 
     /**
@@ -225,7 +173,52 @@ public class ArcButton extends androidx.appcompat.widget.AppCompatButton {
      * @param width stroke width
      */
     public void setStrokeWidth(float width){
-        this.strokeWidth = width;
+        renderer.setStrokeWidth(width);
+    }
+
+    /**
+     * Set the side of the outline the stroke is drawn on
+     * @param alignment one of {@link ArcShape#STROKE_INSIDE}, {@link ArcShape#STROKE_CENTER}
+     *                  or {@link ArcShape#STROKE_OUTSIDE}
+     */
+    public void setStrokeAlignment(int alignment){
+        renderer.setStrokeAlignment(alignment);
+    }
+
+    /**
+     * Dash the stroke
+     * @param dashLength length of the dashes, 0 for a solid stroke
+     * @param dashGap length of the gaps between the dashes
+     */
+    public void setStrokeDash(float dashLength, float dashGap){
+        renderer.setStrokeDash(dashLength, dashGap);
+    }
+
+    /**
+     * Paint the stroke with a linear gradient
+     * @param startColor color at the start of the gradient
+     * @param endColor color at the end of the gradient
+     * @param angle direction of the gradient in degrees, 0 for left to right
+     */
+    public void setStrokeGradient(int startColor, int endColor, float angle){
+        renderer.setStrokeGradient(startColor, endColor, angle);
+    }
+
+    /**
+     * @return the arcs of the button
+     */
+    public ArcSpec getSpec(){
+        return renderer.getSpec();
+    }
+
+    /**
+     * Start a batch of changes to the arcs and stroke
+     * Nothing changes until {@link ArcEditor#apply()} is called,
+     * which redraws the button at most once per frame
+     * @return an editor holding the current values
+     */
+    public ArcEditor edit(){
+        return renderer.edit();
     }
 
     /**
@@ -233,8 +226,7 @@ public class ArcButton extends androidx.appcompat.widget.AppCompatButton {
      * Used to change the arcs in runtime
      */
     public void redraw(){
-        maskBitmap = null;
-        this.invalidate();
+        renderer.redraw();
     }
 
     /**
@@ -242,82 +234,50 @@ public class ArcButton extends androidx.appcompat.widget.AppCompatButton {
      */
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
-        maskBitmap = null;
-
         int xpad = getPaddingLeft() + getPaddingRight();
         int ypad = getPaddingTop() + getPaddingBottom();
-        layoutWidth = w - xpad;
-        layoutHeight = h - ypad;
+        int layoutWidth = w - xpad;
+        int layoutHeight = h - ypad;
 
         super.onSizeChanged(layoutWidth, layoutHeight, oldw, oldh);
+
+        renderer.onSizeChanged(w, h);
     }
 
     /**
-     * Draws ArcButton on the canvas
-     * @param canvas to draw the button into
+     * Called when the view is attached to a window.
      */
-    @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
     @Override
-    public void draw(Canvas canvas){
-        layoutWidth = getWidth();
-        layoutHeight = getHeight();
-        Bitmap offscreenBitmap = Bitmap.createBitmap(layoutWidth, layoutHeight, Bitmap.Config.ARGB_8888);
-        Canvas offscreenCanvas = new Canvas(offscreenBitmap);
-        super.draw(offscreenCanvas);
-
-        if(maskBitmap == null){
-            maskBitmap = createMask(layoutWidth, layoutHeight);
-        }
-
-        offscreenCanvas.drawBitmap(maskBitmap, 0f, 0f, maskPaint);
-        canvas.drawBitmap(offscreenBitmap, 0f, 0f, paint);
-
-        //Stroke
-        if(stroke){
-            paint.setXfermode(null);
-            paint.setStyle(Paint.Style.STROKE);
-            paint.setStrokeWidth(strokeWidth);
-            paint.setColor(strokeColor);
-            ArcShape shape = new ArcShape(topLeftArc, topRightArc, bottomLeftArc, bottomRightArc,
-                    topLeftOuterAxis, topRightOuterAxis, bottomLeftOuterAxis, bottomRightOuterAxis,
-                    topLeftRadius, topRightRadius, bottomLeftRadius, bottomRightRadius);
-            shape.draw(canvas, paint);
-        }
-
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        renderer.onAttachedToWindow();
     }
 
-    @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
-    private Bitmap createMask(int width, int height){
-        Bitmap mask = Bitmap.createBitmap(width, height, Bitmap.Config.ALPHA_8);
-        Canvas canvas = new Canvas(mask);
-
-        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        paint.setAntiAlias(true);
-        paint.setStyle(Paint.Style.FILL_AND_STROKE);
-        paint.setXfermode(null);
-        paint.setColor(Color.WHITE);
-
-        canvas.drawRect(0, 0, width, height, paint);
-
-        paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
-
-        ArcShape shape = new ArcShape(topLeftArc, topRightArc, bottomLeftArc, bottomRightArc,
-                topLeftOuterAxis, topRightOuterAxis, bottomLeftOuterAxis, bottomRightOuterAxis,
-                topLeftRadius, topRightRadius, bottomLeftRadius, bottomRightRadius);
-        shape.draw(canvas, paint);
+    /**
+     * Called when the view is detached from its window.
+     */
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        renderer.onDetachedFromWindow();
+    }
 
-        return mask;
+    /**
+     * Touches starting outside the arcs are left to the views under the button
+     */
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        return renderer.acceptsTouch(event) && super.dispatchTouchEvent(event);
     }
 
-    private Drawable getBackgroundAttr(Context context, TypedArray typed, int index, int resId) {
-        TypedValue colorValue = new TypedValue();
-        if(!typed.getValue(index, colorValue)){
-            return  new ColorDrawable(Color.GRAY);
-        }else if(colorValue.type == TypedValue.TYPE_STRING){
-            return ContextCompat.getDrawable(context, resId);
-        }else{
-            return new ColorDrawable(colorValue.data);
-        }
+    /**
+     * Draws ArcButton on the canvas
+     * @param canvas to draw the button into
+     */
+    @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+    @Override
+    public void draw(Canvas canvas){
+        renderer.draw(canvas);
     }
 
 }
@@ -0,0 +1,264 @@
+package com.stelladk.arclib;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Persistent cache of rasterized mask tiles in a single memory mapped file.
+ * The file starts with a versioned header and a fixed table of entries,
+ * followed by the alpha pixels of the tiles. Tiles are copied straight from the
+ * mapped file into their bitmaps, so masks survive process death without being
+ * rasterized again. When the file or its table is full the least recently used
+ * tiles are dropped and the rest are compacted to the start of the data.
+ * The file is opened on first use and all the methods are thread safe.
+ * Entries are only listed in the header once their pixels are written,
+ * so a process killed while writing never leaves entries with wrong pixels.
+ *
+ * @see ArcMaskCache#setDiskCache(File, int)
+ */
+final class ArcDiskCache {
+    private final static String TAG = "ArcDiskCache";
+
+    private final static int MAGIC = 0x4152434D;
+    /**
+     * Version of the file format and of the tile pixels, files of other versions are cleared
+     */
+    private final static int VERSION = 1;
+    private final static int MAX_ENTRIES = 512;
+
+    //Header: magic, version, max entries, entry count, end of the data, file size, use clock
+    private final static int HEADER_SIZE = 32;
+    //Entry: key, offset, length, width, height, last use
+    private final static int ENTRY_SIZE = 32;
+    private final static int DATA_START = HEADER_SIZE + MAX_ENTRIES * ENTRY_SIZE;
+    private final static int MIN_SIZE = DATA_START + 64 * 1024;
+
+    private final File file;
+    private final int size;
+    private final HashMap<Long, Integer> slots = new HashMap<>();
+    private MappedByteBuffer buffer;
+    private volatile boolean mapped;
+    private boolean failed;
+    private int count, dataEnd;
+    private long clock;
+
+    ArcDiskCache(File file, int size){
+        this.file = file;
+        this.size = Math.max(MIN_SIZE, size);
+    }
+
+    /**
+     * Load a tile into a new bitmap
+     * @param key identity of the tile
+     * @param width width of the tile in pixels
+     * @param height height of the tile in pixels
+     * @return the tile, or null if it is not in the file
+     */
+    synchronized Bitmap get(long key, int width, int height){
+        if(!open()) return null;
+        Integer slot = slots.get(key);
+        if(slot == null) return null;
+
+        int entry = HEADER_SIZE + slot * ENTRY_SIZE;
+        int offset = buffer.getInt(entry + 8);
+        int length = buffer.getInt(entry + 12);
+        if(buffer.getInt(entry + 16) != width || buffer.getInt(entry + 20) != height) return null;
+
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ALPHA_8);
+        if(bitmap.getRowBytes() * height != length){
+            bitmap.recycle();
+            return null;
+        }
+        ByteBuffer pixels = buffer.duplicate();
+        pixels.limit(offset + length);
+        pixels.position(offset);
+        bitmap.copyPixelsFromBuffer(pixels);
+
+        buffer.putLong(entry + 24, ++clock);
+        buffer.putLong(24, clock);
+        return bitmap;
+    }
+
+    /**
+     * Store the pixels of a tile unless it is already in the file
+     * @param key identity of the tile
+     * @param width width of the tile in pixels
+     * @param height height of the tile in pixels
+     * @param pixels alpha pixels of the tile, row by row
+     * @param length number of bytes of the pixels
+     */
+    synchronized void put(long key, int width, int height, byte[] pixels, int length){
+        if(!open() || slots.containsKey(key)) return;
+        //A single tile may not push out more than half of the others
+        if(length > (size - DATA_START) / 2) return;
+
+        if(count == MAX_ENTRIES || dataEnd + length > size){
+            compact(length);
+        }
+
+        ByteBuffer data = buffer.duplicate();
+        data.position(dataEnd);
+        data.put(pixels, 0, length);
+
+        int entry = HEADER_SIZE + count * ENTRY_SIZE;
+        buffer.putInt(entry + 8, dataEnd);
+        buffer.putInt(entry + 12, length);
+        buffer.putInt(entry + 16, width);
+        buffer.putInt(entry + 20, height);
+        buffer.putLong(entry + 24, ++clock);
+        //The key is written last, so a partly written entry never matches
+        buffer.putLong(entry, key);
+        slots.put(key, count);
+
+        count++;
+        dataEnd += length;
+        writeHeader();
+    }
+
+    /**
+     * Remove all the tiles from the file
+     */
+    synchronized void clear(){
+        if(!open()) return;
+        reset();
+    }
+
+    /**
+     * @return true once the file is mapped, without waiting for a thread that is mapping it
+     */
+    boolean isOpen(){
+        return mapped;
+    }
+
+    /**
+     * Map the file, clearing it if it was written by another version or size
+     * Creating and mapping the file may block, so it should be opened off the main thread.
+     * @return false if the file can not be used
+     */
+    synchronized boolean open(){
+        if(buffer != null) return true;
+        if(failed) return false;
+        try{
+            RandomAccessFile access = new RandomAccessFile(file, "rw");
+            try{
+                if(access.length() != size) access.setLength(size);
+                buffer = access.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }finally {
+                //The mapping stays valid after the file is closed
+                access.close();
+            }
+        }catch(IOException e){
+            Log.w(TAG, "Disk cache disabled, can not map " + file, e);
+            failed = true;
+            return false;
+        }
+
+        count = buffer.getInt(12);
+        dataEnd = buffer.getInt(16);
+        clock = buffer.getLong(24);
+        if(buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != MAX_ENTRIES
+                || buffer.getInt(20) != size || count < 0 || count > MAX_ENTRIES
+                || dataEnd < DATA_START || dataEnd > size){
+            reset();
+        }else{
+            for(int slot = 0; slot < count; slot++){
+                slots.put(buffer.getLong(HEADER_SIZE + slot * ENTRY_SIZE), slot);
+            }
+        }
+        mapped = true;
+        return true;
+    }
+
+    private void reset(){
+        slots.clear();
+        count = 0;
+        dataEnd = DATA_START;
+        clock = 0;
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, MAX_ENTRIES);
+        buffer.putInt(20, size);
+        writeHeader();
+    }
+
+    private void writeHeader(){
+        buffer.putInt(12, count);
+        buffer.putInt(16, dataEnd);
+        buffer.putLong(24, clock);
+    }
+
+    /**
+     * Keep the most recently used tiles that fill at most half of the file
+     * and of the table, and move their pixels to the start of the data
+     */
+    private void compact(int needed){
+        List<long[]> entries = new ArrayList<>(count);
+        for(int slot = 0; slot < count; slot++){
+            int entry = HEADER_SIZE + slot * ENTRY_SIZE;
+            entries.add(new long[]{buffer.getLong(entry), buffer.getInt(entry + 8), buffer.getInt(entry + 12),
+                    buffer.getInt(entry + 16), buffer.getInt(entry + 20), buffer.getLong(entry + 24)});
+        }
+        Collections.sort(entries, new Comparator<long[]>() {
+            @Override
+            public int compare(long[] a, long[] b) {
+                return Long.compare(b[5], a[5]);
+            }
+        });
+
+        long budget = (size - DATA_START) / 2 - needed;
+        List<long[]> kept = new ArrayList<>();
+        for(long[] entry : entries){
+            if(kept.size() == MAX_ENTRIES / 2 || budget < entry[2]) break;
+            budget -= entry[2];
+            kept.add(entry);
+        }
+
+        //Moving the pixels in file order only ever copies them towards the start
+        Collections.sort(kept, new Comparator<long[]>() {
+            @Override
+            public int compare(long[] a, long[] b) {
+                return Long.compare(a[1], b[1]);
+            }
+        });
+        //No entry is listed while the pixels move, so the file stays valid if the process dies
+        slots.clear();
+        count = 0;
+        dataEnd = DATA_START;
+        writeHeader();
+        byte[] scratch = new byte[0];
+        for(int slot = 0; slot < kept.size(); slot++){
+            long[] entry = kept.get(slot);
+            int offset = (int) entry[1], length = (int) entry[2];
+            if(scratch.length < length) scratch = new byte[length];
+            ByteBuffer data = buffer.duplicate();
+            data.position(offset);
+            data.get(scratch, 0, length);
+            data.position(dataEnd);
+            data.put(scratch, 0, length);
+
+            int position = HEADER_SIZE + slot * ENTRY_SIZE;
+            buffer.putInt(position + 8, dataEnd);
+            buffer.putInt(position + 12, length);
+            buffer.putInt(position + 16, (int) entry[3]);
+            buffer.putInt(position + 20, (int) entry[4]);
+            buffer.putLong(position + 24, entry[5]);
+            buffer.putLong(position, entry[0]);
+            slots.put(entry[0], slot);
+            dataEnd += length;
+        }
+        count = kept.size();
+        writeHeader();
+    }
+}
@@ -0,0 +1,401 @@
+package com.stelladk.arclib;
+
+import android.content.res.ColorStateList;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.Outline;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.util.AttributeSet;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import com.stelladk.arclib.core.ArcSpec;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+
+/**
+ * Drawable filled with an arc shape.
+ * The path is drawn straight into the canvas without offscreen buffers,
+ * so it is the cheapest way to give arc corners to a background.
+ * Drawables created from the same {@link ConstantState}, like all the drawables
+ * inflated from the same resource, share the shape and a cache of its paths
+ * for the last few sizes, so list backgrounds of different sizes reuse them.
+ *
+ * @see ArcShape
+ *
+ * @attr ref R.styleable#ArcDrawable
+ */
+public class ArcDrawable extends Drawable {
+    private final static String TAG = "ArcDrawable";
+
+    private ArcState state;
+    private boolean mutated;
+
+    private final Paint fillPaint, strokePaint;
+    private PorterDuffColorFilter tintFilter;
+    private int tintColor;
+    private PorterDuff.Mode tintMode;
+    private ColorFilter colorFilter;
+    private int alpha = 255;
+
+    public ArcDrawable(){
+        this(new ArcState());
+    }
+
+    public ArcDrawable(ArcSpec spec, int fillColor){
+        this(new ArcState());
+        state.shape = new ArcShape(spec);
+        state.fillColor = ColorStateList.valueOf(fillColor);
+        updateColors(getState());
+    }
+
+    private ArcDrawable(ArcState state){
+        this.state = state;
+        fillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        strokePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        strokePaint.setStyle(Paint.Style.STROKE);
+        updateTintFilter();
+        updateColors(getState());
+    }
+
+    @Override
+    public void inflate(@NonNull Resources r, @NonNull XmlPullParser parser, @NonNull AttributeSet attrs,
+                        @Nullable Resources.Theme theme) throws XmlPullParserException, IOException {
+        super.inflate(r, parser, attrs, theme);
+
+        TypedArray a = theme != null ? theme.obtainStyledAttributes(attrs, R.styleable.ArcDrawable, 0, 0)
+                : r.obtainAttributes(attrs, R.styleable.ArcDrawable);
+        try{
+            //Default Values
+            int arcType = a.getInteger(R.styleable.ArcDrawable_ArcType, ArcShape.NONE);
+            int outerAxis = a.getInteger(R.styleable.ArcDrawable_OuterAxis, ArcShape.Y_AXIS);
+            float arcRadius = a.getDimension(R.styleable.ArcDrawable_ArcRadius, -1);
+
+            state.shape = new ArcShape(
+                    a.getInteger(R.styleable.ArcDrawable_TopLeftArc, arcType),
+                    a.getInteger(R.styleable.ArcDrawable_TopRightArc, arcType),
+                    a.getInteger(R.styleable.ArcDrawable_BottomLeftArc, arcType),
+                    a.getInteger(R.styleable.ArcDrawable_BottomRightArc, arcType),
+                    a.getInteger(R.styleable.ArcDrawable_TopLeftOuterAxis, outerAxis),
+                    a.getInteger(R.styleable.ArcDrawable_TopRightOuterAxis, outerAxis),
+                    a.getInteger(R.styleable.ArcDrawable_BottomLeftOuterAxis, outerAxis),
+                    a.getInteger(R.styleable.ArcDrawable_BottomRightOuterAxis, outerAxis),
+                    a.getDimension(R.styleable.ArcDrawable_TopLeftRadius, arcRadius),
+                    a.getDimension(R.styleable.ArcDrawable_TopRightRadius, arcRadius),
+                    a.getDimension(R.styleable.ArcDrawable_BottomLeftRadius, arcRadius),
+                    a.getDimension(R.styleable.ArcDrawable_BottomRightRadius, arcRadius));
+
+            if(a.hasValue(R.styleable.ArcDrawable_FillColor)){
+                state.fillColor = a.getColorStateList(R.styleable.ArcDrawable_FillColor);
+            }
+            if(a.getBoolean(R.styleable.ArcDrawable_Stroke, false)){
+                state.strokeColor = a.hasValue(R.styleable.ArcDrawable_StrokeColor)
+                        ? a.getColorStateList(R.styleable.ArcDrawable_StrokeColor)
+                        : ColorStateList.valueOf(Color.WHITE);
+                state.strokeWidth = a.getDimension(R.styleable.ArcDrawable_StrokeWidth, 10);
+            }
+            if(a.hasValue(R.styleable.ArcDrawable_android_tint)){
+                state.tint = a.getColorStateList(R.styleable.ArcDrawable_android_tint);
+            }
+            state.tintMode = parseTintMode(a.getInt(R.styleable.ArcDrawable_android_tintMode, -1), state.tintMode);
+        }finally {
+            a.recycle();
+        }
+
+        updateTintFilter();
+        updateColors(getState());
+    }
+
+    /**
+     * @return the arcs of the drawable
+     */
+    public ArcSpec getSpec(){
+        return state.shape.getSpec();
+    }
+
+    /**
+     * Set the color the shape is filled with
+     * @param color fill color
+     */
+    public void setFillColor(int color){
+        setFillColor(ColorStateList.valueOf(color));
+    }
+
+    /**
+     * Set the colors the shape is filled with in each state
+     * @param colors fill colors, or null for no fill
+     */
+    public void setFillColor(@Nullable ColorStateList colors){
+        state.fillColor = colors;
+        updateColors(getState());
+        invalidateSelf();
+    }
+
+    /**
+     * Set the stroke drawn along the outline of the shape
+     * @param width stroke width, 0 for no stroke
+     * @param color stroke color
+     */
+    public void setStroke(float width, int color){
+        setStroke(width, ColorStateList.valueOf(color));
+    }
+
+    /**
+     * Set the stroke drawn along the outline of the shape
+     * @param width stroke width, 0 for no stroke
+     * @param colors stroke colors in each state
+     */
+    public void setStroke(float width, @Nullable ColorStateList colors){
+        state.strokeWidth = width;
+        state.strokeColor = colors;
+        updateColors(getState());
+        invalidateSelf();
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+        Rect bounds = getBounds();
+        if(bounds.isEmpty()) return;
+
+        int saveCount = canvas.save();
+        canvas.translate(bounds.left, bounds.top);
+        Path path = state.paths.getPath(state.shape.getSpec(), bounds.width(), bounds.height());
+        if(state.fillColor != null){
+            canvas.drawPath(path, fillPaint);
+        }
+        if(state.strokeColor != null && state.strokeWidth > 0){
+            canvas.drawPath(path, strokePaint);
+        }
+        canvas.restoreToCount(saveCount);
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+    @Override
+    public void getOutline(@NonNull Outline outline) {
+        Rect bounds = getBounds();
+        int strategy = ArcRenderStrategy.classify(getSpec(), bounds.width(), bounds.height());
+        if(strategy == ArcRenderStrategy.RECT){
+            outline.setRect(bounds.left, bounds.top, bounds.right, bounds.bottom);
+        }else if(strategy == ArcRenderStrategy.OUTLINE){
+            float radius = ArcRenderStrategy.getOutlineRadius(getSpec().getRadius(ArcSpec.TOP_LEFT),
+                    bounds.width(), bounds.height());
+            outline.setRoundRect(bounds.left, bounds.top, bounds.right, bounds.bottom, radius);
+        }else{
+            //Other arcs cannot be described by an outline
+            outline.setEmpty();
+        }
+        outline.setAlpha(alpha / 255f);
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        if(this.alpha == alpha) return;
+        this.alpha = alpha;
+        updateColors(getState());
+        invalidateSelf();
+    }
+
+    @Override
+    public int getAlpha() {
+        return alpha;
+    }
+
+    @Override
+    public void setColorFilter(@Nullable ColorFilter colorFilter) {
+        this.colorFilter = colorFilter;
+        updateColors(getState());
+        invalidateSelf();
+    }
+
+    @Override
+    public void setTintList(@Nullable ColorStateList tint) {
+        state.tint = tint;
+        updateTintFilter();
+        invalidateSelf();
+    }
+
+    @Override
+    public void setTintMode(@Nullable PorterDuff.Mode tintMode) {
+        state.tintMode = tintMode != null ? tintMode : PorterDuff.Mode.SRC_IN;
+        updateTintFilter();
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
+    @Override
+    public boolean isStateful() {
+        return isStateful(state.fillColor) || isStateful(state.strokeColor) || isStateful(state.tint);
+    }
+
+    @Override
+    protected boolean onStateChange(int[] stateSet) {
+        boolean tintChanged = updateTintFilter();
+        return updateColors(stateSet) || tintChanged;
+    }
+
+    @Override
+    public int getChangingConfigurations() {
+        return super.getChangingConfigurations() | state.changingConfigurations;
+    }
+
+    @Nullable
+    @Override
+    public ConstantState getConstantState() {
+        state.changingConfigurations = getChangingConfigurations();
+        return state;
+    }
+
+    /**
+     * Copy the state before changing the colors, so other drawables
+     * of the same resource are not affected
+     * The shape and its paths are still shared because the arcs cannot be changed
+     */
+    @NonNull
+    @Override
+    public Drawable mutate() {
+        if(!mutated && super.mutate() == this){
+            state = new ArcState(state);
+            mutated = true;
+        }
+        return this;
+    }
+
+    /**
+     * Set the colors of the paints for the given state
+     * @return true if a color changed
+     */
+    private boolean updateColors(int[] stateSet){
+        int fill = getColor(state.fillColor, stateSet);
+        int stroke = getColor(state.strokeColor, stateSet);
+        boolean changed = fill != fillPaint.getColor() || stroke != strokePaint.getColor();
+
+        fillPaint.setColor(fill);
+        strokePaint.setColor(stroke);
+        strokePaint.setStrokeWidth(state.strokeWidth);
+
+        ColorFilter filter = colorFilter != null ? colorFilter : tintFilter;
+        fillPaint.setColorFilter(filter);
+        strokePaint.setColorFilter(filter);
+        return changed;
+    }
+
+    /**
+     * Create the color filter of the tint for the current state
+     * @return true if the filter changed
+     */
+    private boolean updateTintFilter(){
+        PorterDuffColorFilter previous = tintFilter;
+        if(state.tint == null || state.tintMode == null){
+            tintFilter = null;
+        }else{
+            int color = state.tint.getColorForState(getState(), Color.TRANSPARENT);
+            if(previous != null && color == tintColor && state.tintMode == tintMode) return false;
+            tintColor = color;
+            tintMode = state.tintMode;
+            tintFilter = new PorterDuffColorFilter(color, state.tintMode);
+        }
+        if(tintFilter == previous) return false;
+        updateColors(getState());
+        return true;
+    }
+
+    /**
+     * Color of a color list in a state with the alpha of the drawable applied
+     */
+    private int getColor(ColorStateList colors, int[] stateSet){
+        if(colors == null) return Color.TRANSPARENT;
+        int color = colors.getColorForState(stateSet, colors.getDefaultColor());
+        int colorAlpha = Color.alpha(color) * (alpha + (alpha >> 7)) >> 8;
+        return (color & 0x00FFFFFF) | (colorAlpha << 24);
+    }
+
+    private static boolean isStateful(ColorStateList colors){
+        return colors != null && colors.isStateful();
+    }
+
+    /**
+     * Same values as the android:tintMode attribute
+     */
+    private static PorterDuff.Mode parseTintMode(int value, PorterDuff.Mode defaultMode){
+        switch(value){
+            case 3: return PorterDuff.Mode.SRC_OVER;
+            case 5: return PorterDuff.Mode.SRC_IN;
+            case 9: return PorterDuff.Mode.SRC_ATOP;
+            case 14: return PorterDuff.Mode.MULTIPLY;
+            case 15: return PorterDuff.Mode.SCREEN;
+            case 16: return PorterDuff.Mode.ADD;
+            default: return defaultMode;
+        }
+    }
+
+    /**
+     * State shared by all the drawables of the same resource
+     */
+    static final class ArcState extends ConstantState {
+        /**
+         * Number of sizes the paths are cached for
+         */
+        private final static int PATH_CACHE_SIZE = 8;
+
+        ArcShape shape;
+        final ArcPathCache paths;
+        ColorStateList fillColor;
+        ColorStateList strokeColor;
+        float strokeWidth;
+        ColorStateList tint;
+        PorterDuff.Mode tintMode = PorterDuff.Mode.SRC_IN;
+        int changingConfigurations;
+
+        ArcState(){
+            shape = new ArcShape(ArcShape.NONE, ArcShape.NONE, ArcShape.NONE, ArcShape.NONE);
+            paths = new ArcPathCache(PATH_CACHE_SIZE);
+        }
+
+        ArcState(ArcState state){
+            shape = state.shape;
+            paths = state.paths;
+            fillColor = state.fillColor;
+            strokeColor = state.strokeColor;
+            strokeWidth = state.strokeWidth;
+            tint = state.tint;
+            tintMode = state.tintMode;
+            changingConfigurations = state.changingConfigurations;
+        }
+
+        @NonNull
+        @Override
+        public Drawable newDrawable() {
+            return new ArcDrawable(this);
+        }
+
+        @NonNull
+        @Override
+        public Drawable newDrawable(@Nullable Resources res) {
+            return new ArcDrawable(this);
+        }
+
+        @Override
+        public int getChangingConfigurations() {
+            return changingConfigurations;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.stelladk.arclib;
+
+import com.stelladk.arclib.core.ArcSpec;
+
+/**
+ * Batch of changes to the arcs and stroke of an Arc widget.
+ * Nothing changes until {@link #apply()} is called, which applies all the
+ * changes together. The shape is rebuilt at most once per frame, and not
+ * at all if the arcs end up the same as before.
+ * Changes to the arcs can also be animated with {@link #animate(long)}.
+ *
+ * @see ArcLayout#edit()
+ * @see ArcButton#edit()
+ * @see ArcRenderer#edit()
+ */
+public final class ArcEditor {
+    private final static String TAG = "ArcEditor";
+
+    /**
+     * Widget the changes are applied to
+     */
+    interface Target {
+        ArcSpec getSpec();
+        boolean hasStroke();
+        int getStrokeColor();
+        float getStrokeWidth();
+        void apply(ArcSpec spec, boolean stroke, int strokeColor, float strokeWidth);
+        void animate(ArcSpec spec, boolean stroke, int strokeColor, float strokeWidth, long duration);
+    }
+
+    private final Target target;
+
+    private final int[] arcs = new int[4];
+    private final int[] outerAxes = new int[4];
+    private final float[] radii = new float[4];
+
+    private boolean stroke;
+    private int strokeColor;
+    private float strokeWidth;
+
+    ArcEditor(Target target){
+        this.target = target;
+
+        ArcSpec spec = target.getSpec();
+        for(int corner = 0; corner < 4; corner++){
+            arcs[corner] = spec.getArc(corner);
+            outerAxes[corner] = spec.getOuterAxis(corner);
+            radii[corner] = spec.getRadius(corner);
+        }
+        stroke = target.hasStroke();
+        strokeColor = target.getStrokeColor();
+        strokeWidth = target.getStrokeWidth();
+    }
+
+    /**
+     * Set the arc type of all corners
+     * @param arc value that determines arc type
+     */
+    public ArcEditor setArcType(int arc){
+        for(int corner = 0; corner < 4; corner++){
+            arcs[corner] = clampArc(arc);
+        }
+        return this;
+    }
+
+    /**
+     * Set the top left corner arc type
+     * @param arc value that determines arc type
+     */
+    public ArcEditor setTopLeftArc(int arc){
+        arcs[ArcSpec.TOP_LEFT] = clampArc(arc);
+        return this;
+    }
+
+    /**
+     * Set the top right corner arc type
+     * @param arc value that determines arc type
+     */
+    public ArcEditor setTopRightArc(int arc){
+        arcs[ArcSpec.TOP_RIGHT] = clampArc(arc);
+        return this;
+    }
+
+    /**
+     * Set the bottom left corner arc type
+     * @param arc value that determines arc type
+     */
+    public ArcEditor setBottomLeftArc(int arc){
+        arcs[ArcSpec.BOTTOM_LEFT] = clampArc(arc);
+        return this;
+    }
+
+    /**
+     * Set the bottom right corner arc type
+     * @param arc value that determines arc type
+     */
+    public ArcEditor setBottomRightArc(int arc){
+        arcs[ArcSpec.BOTTOM_RIGHT] = clampArc(arc);
+        return this;
+    }
+
+    /**
+     * Set the axis of all outer arcs
+     * @param axis outer arc axis
+     */
+    public ArcEditor setOuterAxis(int axis){
+        for(int corner = 0; corner < 4; corner++){
+            outerAxes[corner] = clampAxis(axis);
+        }
+        return this;
+    }
+
+    /**
+     * Set the top left axis for outer arcs
+     * @param axis outer arc axis
+     */
+    public ArcEditor setTopLeftOuterAxis(int axis){
+        outerAxes[ArcSpec.TOP_LEFT] = clampAxis(axis);
+        return this;
+    }
+
+    /**
+     * Set the top right axis for outer arcs
+     * @param axis outer arc axis
+     */
+    public ArcEditor setTopRightOuterAxis(int axis){
+        outerAxes[ArcSpec.TOP_RIGHT] = clampAxis(axis);
+        return this;
+    }
+
+    /**
+     * Set the bottom left axis for outer arcs
+     * @param axis outer arc axis
+     */
+    public ArcEditor setBottomLeftOuterAxis(int axis){
+        outerAxes[ArcSpec.BOTTOM_LEFT] = clampAxis(axis);
+        return this;
+    }
+
+    /**
+     * Set the bottom right axis for outer arcs
+     * @param axis outer arc axis
+     */
+    public ArcEditor setBottomRightOuterAxis(int axis){
+        outerAxes[ArcSpec.BOTTOM_RIGHT] = clampAxis(axis);
+        return this;
+    }
+
+    /**
+     * Set the radius of all arcs
+     * @param radius arc radius, -1 for the default radius
+     */
+    public ArcEditor setRadius(float radius){
+        for(int corner = 0; corner < 4; corner++){
+            radii[corner] = radius;
+        }
+        return this;
+    }
+
+    /**
+     * Set the top left arc radius
+     * @param radius arc radius
+     */
+    public ArcEditor setTopLeftRadius(float radius){
+        radii[ArcSpec.TOP_LEFT] = radius;
+        return this;
+    }
+
+    /**
+     * Set the top right arc radius
+     * @param radius arc radius
+     */
+    public ArcEditor setTopRightRadius(float radius){
+        radii[ArcSpec.TOP_RIGHT] = radius;
+        return this;
+    }
+
+    /**
+     * Set the bottom left arc radius
+     * @param radius arc radius
+     */
+    public ArcEditor setBottomLeftRadius(float radius){
+        radii[ArcSpec.BOTTOM_LEFT] = radius;
+        return this;
+    }
+
+    /**
+     * Set the bottom right arc radius
+     * @param radius arc radius
+     */
+    public ArcEditor setBottomRightRadius(float radius){
+        radii[ArcSpec.BOTTOM_RIGHT] = radius;
+        return this;
+    }
+
+    /**
+     * Add stroke to the widget
+     * @param stroke if true add stroke
+     */
+    public ArcEditor setStroke(boolean stroke){
+        this.stroke = stroke;
+        return this;
+    }
+
+    /**
+     * Set stroke color
+     * @param color stroke color
+     */
+    public ArcEditor setStrokeColor(int color){
+        this.strokeColor = color;
+        return this;
+    }
+
+    /**
+     * Set stroke width
+     * @param width stroke width
+     */
+    public ArcEditor setStrokeWidth(float width){
+        this.strokeWidth = width;
+        return this;
+    }
+
+    /**
+     * Apply all the changes to the widget
+     * Stroke changes are drawn on the next frame and arc changes
+     * rebuild the shape once on the next frame if the arcs changed
+     */
+    public void apply(){
+        target.apply(createSpec(), stroke, strokeColor, strokeWidth);
+    }
+
+    /**
+     * Apply all the changes to the widget, morphing the arcs into the new ones
+     * Radii and arc types are interpolated and every frame is clipped with a path,
+     * the mask of the new arcs is only built once the animation ends.
+     * Stroke changes are applied immediately.
+     * @param duration duration of the animation in milliseconds
+     */
+    public void animate(long duration){
+        target.animate(createSpec(), stroke, strokeColor, strokeWidth, duration);
+    }
+
+    private ArcSpec createSpec(){
+        return new ArcSpec(
+                arcs[ArcSpec.TOP_LEFT], arcs[ArcSpec.TOP_RIGHT], arcs[ArcSpec.BOTTOM_LEFT], arcs[ArcSpec.BOTTOM_RIGHT],
+                outerAxes[ArcSpec.TOP_LEFT], outerAxes[ArcSpec.TOP_RIGHT], outerAxes[ArcSpec.BOTTOM_LEFT], outerAxes[ArcSpec.BOTTOM_RIGHT],
+                radii[ArcSpec.TOP_LEFT], radii[ArcSpec.TOP_RIGHT], radii[ArcSpec.BOTTOM_LEFT], radii[ArcSpec.BOTTOM_RIGHT]);
+    }
+
+    /**
+     * Same rules as the setters of the widgets
+     */
+    static int clampArc(int arc){
+        if(arc == ArcShape.NONE) return arc;
+        return arc < ArcShape.NONE ? ArcShape.INNER : ArcShape.OUTER;
+    }
+
+    static int clampAxis(int axis){
+        return axis <= ArcShape.X_AXIS ? ArcShape.X_AXIS : ArcShape.Y_AXIS;
+    }
+}
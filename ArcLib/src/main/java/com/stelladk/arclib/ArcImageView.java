@@ -0,0 +1,132 @@
+package com.stelladk.arclib;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.os.Build;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+import androidx.appcompat.widget.AppCompatImageView;
+
+import com.stelladk.arclib.core.ArcSpec;
+
+/**
+ * Image view with customisable arc corners
+ * Takes the same attributes as {@link ArcLayout} without
+ * the extra layout level and buffer of wrapping an image in it
+ *
+ * @see ArcShape
+ * @see ArcRenderer
+ *
+ * @attr ref R.styleable#ArcLayout
+ */
+public class ArcImageView extends AppCompatImageView {
+    private final static String TAG = "ArcImageView";
+
+    private ArcRenderer renderer;
+
+    public ArcImageView(@NonNull Context context) {
+        super(context);
+        init(context, null, 0);
+    }
+
+    public ArcImageView(@NonNull Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        init(context, attrs, 0);
+    }
+
+    public ArcImageView(@NonNull Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(context, attrs, defStyleAttr);
+    }
+
+    private void init(Context context, AttributeSet attrs, int defStyleAttr){
+        renderer = new ArcRenderer(new ArcRenderer.Host() {
+            @Override
+            public View getView() {
+                return ArcImageView.this;
+            }
+
+            @Override
+            public void drawContent(Canvas canvas) {
+                ArcImageView.super.draw(canvas);
+            }
+        });
+        renderer.loadAttributes(context, attrs, defStyleAttr);
+    }
+
+    /**
+     * @return the arcs of the image
+     */
+    public ArcSpec getSpec(){
+        return renderer.getSpec();
+    }
+
+    /**
+     * Start a batch of changes to the arcs and stroke
+     * Nothing changes until {@link ArcEditor#apply()} is called,
+     * which redraws the image at most once per frame
+     * @return an editor holding the current values
+     */
+    public ArcEditor edit(){
+        return renderer.edit();
+    }
+
+    /**
+     * Redraw the ArcImageView
+     * Used to change the arcs in runtime
+     */
+    public void redraw(){
+        renderer.redraw();
+    }
+
+    /**
+     * Called when the size of this view has changed.
+     */
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        renderer.onSizeChanged(w, h);
+    }
+
+    /**
+     * Called when the view is attached to a window.
+     */
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        renderer.onAttachedToWindow();
+    }
+
+    /**
+     * Called when the view is detached from its window.
+     */
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        renderer.onDetachedFromWindow();
+    }
+
+    /**
+     * Touches starting outside the arcs are left to the views under the image
+     */
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        return renderer.acceptsTouch(event) && super.dispatchTouchEvent(event);
+    }
+
+    /**
+     * Draws ArcImageView on the canvas
+     * @param canvas to draw the image into
+     */
+    @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+    @Override
+    public void draw(Canvas canvas){
+        renderer.draw(canvas);
+    }
+
+}
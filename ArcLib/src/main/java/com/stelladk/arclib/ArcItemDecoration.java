@@ -0,0 +1,186 @@
+package com.stelladk.arclib;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.stelladk.arclib.core.ArcSpec;
+
+/**
+ * Arc shaped backgrounds for the items of a RecyclerView.
+ * Draws the shape of every visible item in one pass over the list,
+ * so the items can be plain views without an offscreen buffer each.
+ * The arcs of an item come from its adapter position, and items with the
+ * same arcs and size share one cached path.
+ * The corners of the items can be clipped by painting them with the
+ * background color of the list, which keeps the whole pass free of layers.
+ *
+ * <pre>
+ * recyclerView.addItemDecoration(new ArcItemDecoration(new ArcItemDecoration.GroupSpecLookup(
+ *         single, first, middle, last) {
+ *     public boolean isSameGroup(int position, int other) { ... }
+ * }));
+ * </pre>
+ *
+ * @see ArcShape
+ * @see ArcDrawable
+ */
+public class ArcItemDecoration extends RecyclerView.ItemDecoration {
+    private final static String TAG = "ArcItemDecoration";
+
+    /**
+     * Gives the arcs of the items of the list
+     */
+    public interface SpecLookup {
+        /**
+         * @param position adapter position of the item
+         * @return the arcs of the item, or null to leave the item undecorated
+         */
+        @Nullable
+        ArcSpec getSpec(int position);
+    }
+
+    private final SpecLookup lookup;
+    /**
+     * Number of item shapes the paths are cached for, enough for the items of a screen
+     */
+    private final static int PATH_CACHE_SIZE = 32;
+
+    private final ArcPathCache paths = new ArcPathCache(PATH_CACHE_SIZE);
+    private final Paint fillPaint, strokePaint, cornerPaint;
+    private int fillColor = Color.WHITE;
+    private int strokeColor;
+    private int cornerColor;
+
+    public ArcItemDecoration(SpecLookup lookup) {
+        this.lookup = lookup;
+        fillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        fillPaint.setColor(fillColor);
+        strokePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        strokePaint.setStyle(Paint.Style.STROKE);
+        cornerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    }
+
+    /**
+     * Set the color of the item backgrounds
+     * Call {@link RecyclerView#invalidateItemDecorations()} for the change to show
+     * @param color fill color, transparent to only draw the stroke
+     */
+    public void setFillColor(int color) {
+        fillColor = color;
+        fillPaint.setColor(color);
+    }
+
+    /**
+     * Set the stroke drawn along the shape of the items, over their content
+     * @param width stroke width in pixels, 0 for no stroke
+     * @param color stroke color
+     */
+    public void setStroke(float width, int color) {
+        strokeColor = width > 0 ? color : Color.TRANSPARENT;
+        strokePaint.setStrokeWidth(width);
+        strokePaint.setColor(color);
+    }
+
+    /**
+     * Clip the corners of the items by painting them over their content
+     * @param color background color of the list, transparent to not clip the items
+     */
+    public void setCornerColor(int color) {
+        cornerColor = color;
+        cornerPaint.setColor(color);
+    }
+
+    @Override
+    public void onDraw(@NonNull Canvas canvas, @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        if(Color.alpha(fillColor) == 0) return;
+        for(int i = 0; i < parent.getChildCount(); i++){
+            drawItem(canvas, parent, parent.getChildAt(i), fillPaint, fillColor, false);
+        }
+    }
+
+    @Override
+    public void onDrawOver(@NonNull Canvas canvas, @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        boolean corners = Color.alpha(cornerColor) != 0;
+        boolean stroke = Color.alpha(strokeColor) != 0;
+        if(!corners && !stroke) return;
+        for(int i = 0; i < parent.getChildCount(); i++){
+            View child = parent.getChildAt(i);
+            if(corners) drawItem(canvas, parent, child, cornerPaint, cornerColor, true);
+            if(stroke) drawItem(canvas, parent, child, strokePaint, strokeColor, false);
+        }
+    }
+
+    /**
+     * Draw the shape of an item with a paint, following its translation and alpha
+     * @param inverse true to fill the bounds of the item outside the shape instead
+     */
+    private void drawItem(Canvas canvas, RecyclerView parent, View child, Paint paint, int color, boolean inverse) {
+        int position = parent.getChildAdapterPosition(child);
+        if(position == RecyclerView.NO_POSITION) return;
+        ArcSpec spec = lookup.getSpec(position);
+        if(spec == null) return;
+
+        int width = child.getWidth(), height = child.getHeight();
+        if(width <= 0 || height <= 0) return;
+        Path path = paths.getPath(spec, width, height);
+
+        paint.setAlpha(Math.round(Color.alpha(color) * child.getAlpha()));
+        int saveCount = canvas.save();
+        canvas.translate(child.getLeft() + child.getTranslationX(), child.getTop() + child.getTranslationY());
+        if(inverse){
+            //The shared path is flipped back right after it is drawn
+            canvas.clipRect(0, 0, width, height);
+            path.toggleInverseFillType();
+            canvas.drawPath(path, paint);
+            path.toggleInverseFillType();
+        }else{
+            canvas.drawPath(path, paint);
+        }
+        canvas.restoreToCount(saveCount);
+    }
+
+    /**
+     * Gives grouped items, like consecutive messages of a chat, the arcs of their place in the group
+     */
+    public abstract static class GroupSpecLookup implements SpecLookup {
+        private final ArcSpec single, first, middle, last;
+
+        /**
+         * @param single arcs of an item alone in its group
+         * @param first arcs of the first item of a group
+         * @param middle arcs of the items between the first and the last
+         * @param last arcs of the last item of a group
+         */
+        public GroupSpecLookup(ArcSpec single, ArcSpec first, ArcSpec middle, ArcSpec last) {
+            this.single = single;
+            this.first = first;
+            this.middle = middle;
+            this.last = last;
+        }
+
+        /**
+         * @param position adapter position of an item
+         * @param other adapter position next to it, which may be outside the adapter
+         * @return true if both items are in the same group
+         */
+        public abstract boolean isSameGroup(int position, int other);
+
+        @Nullable
+        @Override
+        public ArcSpec getSpec(int position) {
+            boolean previous = position > 0 && isSameGroup(position, position - 1);
+            boolean next = isSameGroup(position, position + 1);
+            if(previous && next) return middle;
+            if(previous) return last;
+            if(next) return first;
+            return single;
+        }
+    }
+}
@@ -1,26 +1,27 @@
 package com.stelladk.arclib;
 
 import android.content.Context;
-import android.content.res.TypedArray;
-import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.PorterDuff;
-import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.util.AttributeSet;
-import android.util.Log;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewParent;
 import android.widget.FrameLayout;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 
+import com.stelladk.arclib.core.ArcSpec;
+
 /**
  * Layout with customisable arc corners
  *
  * @see ArcShape
+ * @see ArcRenderer
  *
  * @attr ref R.styleable#ArcLayout
  *
@@ -43,18 +44,7 @@ import androidx.annotation.RequiresApi;
 public class ArcLayout extends FrameLayout {
     private final static String TAG = "ArcLayout";
 
-    private int layoutWidth, layoutHeight;
-
-    private Bitmap maskBitmap;
-    private Paint paint, maskPaint;
-
-    private int arcType, topLeftArc, topRightArc, bottomLeftArc, bottomRightArc;
-    private int outerAxis, topLeftOuterAxis, topRightOuterAxis, bottomLeftOuterAxis, bottomRightOuterAxis;
-    private float arcRadius, topLeftRadius, topRightRadius, bottomLeftRadius, bottomRightRadius;
-
-    private boolean stroke;
-    private int strokeColor;
-    private float strokeWidth;
+    private ArcRenderer renderer;
 
     public ArcLayout(@NonNull Context context) {
         super(context);
@@ -72,39 +62,18 @@ public class ArcLayout extends FrameLayout {
     }
 
     private void init(Context context, AttributeSet attrs, int defStyleAttr){
-        TypedArray a = context.getTheme().obtainStyledAttributes(attrs, R.styleable.ArcLayout, defStyleAttr, 0);
-        try{
-            //Default Values
-            this.arcType = a.getInteger(R.styleable. ArcLayout_ArcType, ArcShape.NONE);
-            this.outerAxis = a.getInteger(R.styleable.ArcLayout_OuterAxis, ArcShape.Y_AXIS);
-            this.arcRadius = a.getDimension(R.styleable.ArcLayout_ArcRadius, -1);
-
-            this.topLeftArc = a.getInteger(R.styleable.ArcLayout_TopLeftArc, arcType);
-            this.topRightArc = a.getInteger(R.styleable.ArcLayout_TopRightArc, arcType);
-            this.bottomLeftArc = a.getInteger(R.styleable.ArcLayout_BottomLeftArc, arcType);
-            this.bottomRightArc = a.getInteger(R.styleable.ArcLayout_BottomRightArc, arcType);
-
-            this.topLeftOuterAxis = a.getInteger(R.styleable.ArcLayout_TopLeftOuterAxis, outerAxis);
-            this.topRightOuterAxis = a.getInteger(R.styleable.ArcLayout_TopRightOuterAxis, outerAxis);
-            this.bottomLeftOuterAxis = a.getInteger(R.styleable.ArcLayout_BottomLeftOuterAxis, outerAxis);
-            this.bottomRightOuterAxis = a.getInteger(R.styleable.ArcLayout_BottomRightOuterAxis, outerAxis);
-
-            this.topLeftRadius = a.getDimension(R.styleable.ArcLayout_TopLeftRadius, arcRadius);
-            this.topRightRadius = a.getDimension(R.styleable.ArcLayout_TopRightRadius, arcRadius);
-            this.bottomLeftRadius = a.getDimension(R.styleable.ArcLayout_BottomLeftRadius, arcRadius);
-            this.bottomRightRadius = a.getDimension(R.styleable.ArcLayout_BottomRightRadius, arcRadius);
-
-            this.stroke = a.getBoolean(R.styleable.ArcLayout_Stroke, false);
-            this.strokeColor = a.getColor(R.styleable.ArcLayout_StrokeColor, Color.WHITE);
-            this.strokeWidth = a.getDimension(R.styleable.ArcLayout_StrokeWidth, 10);
-        }finally {
-            a.recycle();
-        }
-
-        paint = new Paint(Paint.ANTI_ALIAS_FLAG);
-
-        maskPaint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
-        maskPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
+        renderer = new ArcRenderer(new ArcRenderer.Host() {
+            @Override
+            public View getView() {
+                return ArcLayout.this;
+            }
+
+            @Override
+            public void drawContent(Canvas canvas) {
+                ArcLayout.super.draw(canvas);
+            }
+        });
+        renderer.loadAttributes(context, attrs, defStyleAttr);
 
         setWillNotDraw(false);
     }
@@ -114,9 +83,7 @@ public class ArcLayout extends FrameLayout {
      * @param arc value that determines arc type
      */
     public void setTopLeftArcType(int arc){
-        if(arc == ArcShape.NONE) this.topLeftArc = arc;
-        if(arc <= ArcShape.INNER) this.topLeftArc = ArcShape.INNER;
-        if(arc >= ArcShape.OUTER) this.topLeftArc = ArcShape.OUTER;
+        renderer.setArc(ArcSpec.TOP_LEFT, arc);
     }
 
     /**
@@ -124,9 +91,7 @@ public class ArcLayout extends FrameLayout {
      * @param arc value that determines arc type
      */
     public void setTopRightArc(int arc){
-        if(arc == ArcShape.NONE) this.topRightArc = arc;
-        if(arc <= ArcShape.INNER) this.topRightArc = ArcShape.INNER;
-        if(arc >= ArcShape.OUTER) this.topRightArc = ArcShape.OUTER;
+        renderer.setArc(ArcSpec.TOP_RIGHT, arc);
     }
 
     /**
@@ -134,9 +99,7 @@ public class ArcLayout extends FrameLayout {
      * @param arc value that determines arc type
      */
     public void setBottomLeftArc(int arc){
-        if(arc == ArcShape.NONE) this.bottomLeftArc = arc;
-        if(arc <= ArcShape.INNER) this.bottomLeftArc = ArcShape.INNER;
-        if(arc >= ArcShape.OUTER) this.bottomLeftArc = ArcShape.OUTER;
+        renderer.setArc(ArcSpec.BOTTOM_LEFT, arc);
     }
 
     /**
@@ -144,9 +107,7 @@ public class ArcLayout extends FrameLayout {
      * @param arc value that determines arc type
      */
     public void setBottomRightArc(int arc){
-        if(arc == ArcShape.NONE) this.bottomRightArc = arc;
-        if(arc <= ArcShape.INNER) this.bottomRightArc = ArcShape.INNER;
-        if(arc >= ArcShape.OUTER) this.bottomRightArc = ArcShape.OUTER;
+        renderer.setArc(ArcSpec.BOTTOM_RIGHT, arc);
     }
 
     /**
@@ -154,8 +115,7 @@ public class ArcLayout extends FrameLayout {
      * @param axis outer arc axis
      */
     public void setTopLeftOuterAxis(int axis){
-        if(axis <= ArcShape.X_AXIS) this.topLeftOuterAxis = ArcShape.X_AXIS;
-        if(axis >= ArcShape.Y_AXIS) this.topLeftOuterAxis = ArcShape.Y_AXIS;
+        renderer.setOuterAxis(ArcSpec.TOP_LEFT, axis);
     }
 
     /**
@@ -163,8 +123,7 @@ public class ArcLayout extends FrameLayout {
      * @param axis outer arc axis
      */
     public void setTopRightOuterAxis(int axis){
-        if(axis <= ArcShape.X_AXIS) this.topRightOuterAxis = ArcShape.X_AXIS;
-        if(axis >= ArcShape.Y_AXIS) this.topRightOuterAxis = ArcShape.Y_AXIS;
+        renderer.setOuterAxis(ArcSpec.TOP_RIGHT, axis);
     }
 
     /**
@@ -172,8 +131,7 @@ public class ArcLayout extends FrameLayout {
      * @param axis outer arc axis
      */
     public void setBottomLeftOuterAxis(int axis){
-        if(axis <= ArcShape.X_AXIS) this.bottomLeftOuterAxis = ArcShape.X_AXIS;
-        if(axis >= ArcShape.Y_AXIS) this.bottomLeftOuterAxis = ArcShape.Y_AXIS;
+        renderer.setOuterAxis(ArcSpec.BOTTOM_LEFT, axis);
     }
 
     /**
@@ -181,8 +139,7 @@ public class ArcLayout extends FrameLayout {
      * @param axis outer arc axis
      */
     public void setBottomRightOuterAxis(int axis){
-        if(axis <= ArcShape.X_AXIS) this.bottomRightOuterAxis = ArcShape.X_AXIS;
-        if(axis >= ArcShape.Y_AXIS) this.bottomRightOuterAxis = ArcShape.Y_AXIS;
+        renderer.setOuterAxis(ArcSpec.BOTTOM_RIGHT, axis);
     }
 
     /**
@@ -190,7 +147,7 @@ public class ArcLayout extends FrameLayout {
      * @param radius arc radius
      */
     public void setTopLeftRadius(float radius){
-        this.topLeftRadius = radius;
+        renderer.setRadius(ArcSpec.TOP_LEFT, radius);
     }
 
     /**
@@ -198,7 +155,7 @@ public class ArcLayout extends FrameLayout {
      * @param radius arc radius
      */
     public void setTopRightRadius(float radius){
-        this.topRightRadius = radius;
+        renderer.setRadius(ArcSpec.TOP_RIGHT, radius);
     }
 
     /**
@@ -206,7 +163,7 @@ public class ArcLayout extends FrameLayout {
      * @param radius arc radius
      */
     public void setBottomLeftRadius(float radius){
-        this.bottomLeftRadius = radius;
+        renderer.setRadius(ArcSpec.BOTTOM_LEFT, radius);
     }
 
     /**
@@ -214,7 +171,7 @@ public class ArcLayout extends FrameLayout {
      * @param radius arc radius
      */
     public void setBottomRightRadius(float radius){
-        this.bottomRightRadius = radius;
+        renderer.setRadius(ArcSpec.BOTTOM_RIGHT, radius);
     }
 
     /**
@@ -222,7 +179,7 @@ public class ArcLayout extends FrameLayout {
      * @param stroke if true add stroke
      */
     public void setStroke(boolean stroke){
-        this.stroke = stroke;
+        renderer.setStroke(stroke);
     }
 
     /**
@@ -230,7 +187,7 @@ public class ArcLayout extends FrameLayout {
      * @param color stroke color
      */
     public void setStrokeColor(int color){
-        this.strokeColor = color;
+        renderer.setStrokeColor(color);
     }
 
     /**
@@ -238,7 +195,52 @@ public class ArcLayout extends FrameLayout {
      * @param width stroke width
      */
     public void setStrokeWidth(float width){
-        this.strokeWidth = width;
+        renderer.setStrokeWidth(width);
+    }
+
+    /**
+     * Set the side of the outline the stroke is drawn on
+     * @param alignment one of {@link ArcShape#STROKE_INSIDE}, {@link ArcShape#STROKE_CENTER}
+     *                  or {@link ArcShape#STROKE_OUTSIDE}
+     */
+    public void setStrokeAlignment(int alignment){
+        renderer.setStrokeAlignment(alignment);
+    }
+
+    /**
+     * Dash the stroke
+     * @param dashLength length of the dashes, 0 for a solid stroke
+     * @param dashGap length of the gaps between the dashes
+     */
+    public void setStrokeDash(float dashLength, float dashGap){
+        renderer.setStrokeDash(dashLength, dashGap);
+    }
+
+    /**
+     * Paint the stroke with a linear gradient
+     * @param startColor color at the start of the gradient
+     * @param endColor color at the end of the gradient
+     * @param angle direction of the gradient in degrees, 0 for left to right
+     */
+    public void setStrokeGradient(int startColor, int endColor, float angle){
+        renderer.setStrokeGradient(startColor, endColor, angle);
+    }
+
+    /**
+     * @return the arcs of the layout
+     */
+    public ArcSpec getSpec(){
+        return renderer.getSpec();
+    }
+
+    /**
+     * Start a batch of changes to the arcs and stroke
+     * Nothing changes until {@link ArcEditor#apply()} is called,
+     * which redraws the layout at most once per frame
+     * @return an editor holding the current values
+     */
+    public ArcEditor edit(){
+        return renderer.edit();
     }
 
     /**
@@ -246,8 +248,7 @@ public class ArcLayout extends FrameLayout {
      * Used to change the arcs in runtime
      */
     public void redraw(){
-        maskBitmap = null;
-        this.invalidate();
+        renderer.redraw();
     }
 
     /**
@@ -255,70 +256,127 @@ public class ArcLayout extends FrameLayout {
      */
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
-        maskBitmap = null;
-
         int xpad = getPaddingLeft() + getPaddingRight();
         int ypad = getPaddingTop() + getPaddingBottom();
-        layoutWidth = w - xpad;
-        layoutHeight = h - ypad;
+        int layoutWidth = w - xpad;
+        int layoutHeight = h - ypad;
 
         super.onSizeChanged(layoutWidth, layoutHeight, oldw, oldh);
+
+        renderer.onSizeChanged(layoutWidth, layoutHeight);
     }
 
     /**
-     * Draws ArcLayout on the canvas
-     * @param canvas to draw the layout into
+     * Called when the view is attached to a window.
      */
-    @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
     @Override
-    public void draw(Canvas canvas){
-        Bitmap offscreenBitmap = Bitmap.createBitmap(layoutWidth, layoutHeight, Bitmap.Config.ARGB_8888);
-        Canvas offscreenCanvas = new Canvas(offscreenBitmap);
-        super.draw(offscreenCanvas);
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        renderer.onAttachedToWindow();
+    }
 
-        if(maskBitmap == null){
-            maskBitmap = createMask(layoutWidth, layoutHeight);
-        }
+    /**
+     * Called when the view is detached from its window.
+     */
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        renderer.onDetachedFromWindow();
+    }
 
-        offscreenCanvas.drawBitmap(maskBitmap, 0f, 0f, maskPaint);
-        canvas.drawBitmap(offscreenBitmap, 0f, 0f, paint);
-
-        //Stroke
-        if(stroke){
-            paint.setXfermode(null);
-            paint.setStyle(Paint.Style.STROKE);
-            paint.setStrokeWidth(strokeWidth);
-            paint.setColor(strokeColor);
-            ArcShape shape = new ArcShape(topLeftArc, topRightArc, bottomLeftArc, bottomRightArc,
-                    topLeftOuterAxis, topRightOuterAxis, bottomLeftOuterAxis, bottomRightOuterAxis,
-                    topLeftRadius, topRightRadius, bottomLeftRadius, bottomRightRadius);
-            shape.draw(canvas, paint);
-        }
+    @Override
+    public void invalidate() {
+        //Also called by the super constructors before the renderer exists
+        if(renderer != null) renderer.onContentInvalidated();
+        super.invalidate();
+    }
 
+    @Override
+    @Deprecated
+    public void invalidate(Rect dirty) {
+        if(renderer != null) renderer.onContentInvalidated();
+        super.invalidate(dirty);
     }
 
-    @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
-    private Bitmap createMask(int width, int height){
-        Bitmap mask = Bitmap.createBitmap(width, height, Bitmap.Config.ALPHA_8);
-        Canvas canvas = new Canvas(mask);
+    @Override
+    @Deprecated
+    public void invalidate(int l, int t, int r, int b) {
+        if(renderer != null) renderer.onContentInvalidated();
+        super.invalidate(l, t, r, b);
+    }
 
-        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        paint.setAntiAlias(true);
-        paint.setStyle(Paint.Style.FILL_AND_STROKE);
-        paint.setXfermode(null);
-        paint.setColor(Color.WHITE);
+    @Override
+    @Deprecated
+    public void setBackgroundDrawable(Drawable background) {
+        if(renderer != null) renderer.onContentInvalidated();
+        super.setBackgroundDrawable(background);
+    }
 
-        canvas.drawRect(0, 0, width, height, paint);
+    @Override
+    protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+        super.onScrollChanged(l, t, oldl, oldt);
+        renderer.onContentInvalidated();
+    }
 
-        paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
+    @Override
+    public void onViewAdded(View child) {
+        super.onViewAdded(child);
+        renderer.onContentInvalidated();
+    }
 
-        ArcShape shape = new ArcShape(topLeftArc, topRightArc, bottomLeftArc, bottomRightArc,
-                topLeftOuterAxis, topRightOuterAxis, bottomLeftOuterAxis, bottomRightOuterAxis,
-                topLeftRadius, topRightRadius, bottomLeftRadius, bottomRightRadius);
-        shape.draw(canvas, paint);
+    @Override
+    public void onViewRemoved(View child) {
+        super.onViewRemoved(child);
+        renderer.onContentInvalidated();
+    }
 
-        return mask;
+    /**
+     * Called when a descendant is invalidated by a hardware accelerated window.
+     * The masked buffers hold the children, so the layout has to be drawn again,
+     * but only the regions of the buffers under the descendant are stale.
+     */
+    @Override
+    public void onDescendantInvalidated(@NonNull View child, @NonNull View target) {
+        super.onDescendantInvalidated(child, target);
+        if(renderer.onDescendantInvalidated(target)){
+            super.invalidate();
+        }
     }
 
-}
+    /**
+     * Called when a descendant is invalidated by a software window, or by a hardware
+     * accelerated window before API 26, the dirty rect is in the coordinates of the layout
+     * after super returns
+     */
+    @Override
+    @Deprecated
+    public ViewParent invalidateChildInParent(int[] location, Rect dirty) {
+        ViewParent parent = super.invalidateChildInParent(location, dirty);
+        if(renderer.onChildInvalidated(dirty) && isHardwareAccelerated()){
+            //Hardware windows only record the display list of the descendant again,
+            //and the rect does not say where it was before, so the buffers are drawn again
+            renderer.onContentInvalidated();
+            super.invalidate();
+        }
+        return parent;
+    }
+
+    /**
+     * Touches starting outside the arcs are left to the views under the layout and its children
+     */
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        return renderer.acceptsTouch(event) && super.dispatchTouchEvent(event);
+    }
 
+    /**
+     * Draws ArcLayout on the canvas
+     * @param canvas to draw the layout into
+     */
+    @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+    @Override
+    public void draw(Canvas canvas){
+        renderer.draw(canvas);
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.stelladk.arclib;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Region;
+import android.os.Build;
+
+/**
+ * Mask of an arc shape stored as its corner tiles.
+ * Only the curves of the corners are partially covered, so the rest
+ * of the shape is described by its body rect: everything inside the body
+ * is kept and everything outside it, apart from the outer arc tiles, is cleared.
+ * Shapes whose corner tiles overlap use a single full size tile instead.
+ * Tiles are opaque where the content has to be cleared.
+ * Masks of reduced resolution have tiles smaller than their bounds,
+ * which are scaled up with the filtering of the paint.
+ *
+ * @see ArcMaskCache
+ */
+public final class ArcMask {
+    private final static String TAG = "ArcMask";
+
+    final int width, height;
+    final Rect body;
+    final Bitmap[] tiles;
+    final Rect[] bounds;
+    final ArcMaskCache.TileKey[] keys;
+    private final Rect destination = new Rect();
+
+    ArcMask(int width, int height, Rect body, Bitmap[] tiles, Rect[] bounds, ArcMaskCache.TileKey[] keys){
+        this.width = width;
+        this.height = height;
+        this.body = body;
+        this.tiles = tiles;
+        this.bounds = bounds;
+        this.keys = keys;
+    }
+
+    /**
+     * Clear everything outside the shape
+     * @param canvas canvas holding the content of the shape
+     * @param clearPaint paint with a CLEAR transfer mode
+     */
+    public void draw(Canvas canvas, Paint clearPaint){
+        if(body != null){
+            int saveCount = canvas.save();
+            for(Rect tile : bounds){
+                if(tile != null) clipOut(canvas, tile);
+            }
+            //Margins around the body
+            canvas.drawRect(0, 0, width, body.top, clearPaint);
+            canvas.drawRect(0, body.bottom, width, height, clearPaint);
+            canvas.drawRect(0, body.top, body.left, body.bottom, clearPaint);
+            canvas.drawRect(body.right, body.top, width, body.bottom, clearPaint);
+            canvas.restoreToCount(saveCount);
+        }
+
+        for(int i = 0; i < tiles.length; i++){
+            if(tiles[i] == null) continue;
+            drawTile(canvas, i, bounds[i].left, bounds[i].top, clearPaint);
+        }
+    }
+
+    /**
+     * Remove a rect from the clip of the canvas
+     * Region.Op.DIFFERENCE is deprecated from API 26, where clipOutRect replaces it
+     */
+    @SuppressWarnings("deprecation")
+    static void clipOut(Canvas canvas, Rect rect){
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.O){
+            canvas.clipOutRect(rect);
+        }else{
+            canvas.clipRect(rect, Region.Op.DIFFERENCE);
+        }
+    }
+
+    /**
+     * Draw a tile scaled to the size of its bounds
+     * @param canvas canvas to draw the tile into
+     * @param tile index of the tile
+     * @param left left position of the tile in the canvas
+     * @param top top position of the tile in the canvas
+     * @param paint paint to draw the tile with
+     */
+    void drawTile(Canvas canvas, int tile, int left, int top, Paint paint){
+        Bitmap bitmap = tiles[tile];
+        Rect bounds = this.bounds[tile];
+        if(bitmap.getWidth() == bounds.width() && bitmap.getHeight() == bounds.height()){
+            canvas.drawBitmap(bitmap, left, top, paint);
+        }else{
+            destination.set(left, top, left + bounds.width(), top + bounds.height());
+            canvas.drawBitmap(bitmap, null, destination, paint);
+        }
+    }
+
+    /**
+     * @return true if the mask is a single full size tile
+     */
+    public boolean isFullSize(){
+        return body == null;
+    }
+
+    /**
+     * @return the number of pixels covered by the tiles
+     */
+    public int getCornerArea(){
+        int area = 0;
+        for(Rect tile : bounds){
+            if(tile != null) area += tile.width() * tile.height();
+        }
+        return area;
+    }
+
+    /**
+     * @return the size of the tiles of the mask in bytes
+     */
+    public int getByteCount(){
+        int bytes = 0;
+        for(Bitmap tile : tiles){
+            if(tile != null) bytes += tile.getByteCount();
+        }
+        return bytes;
+    }
+}
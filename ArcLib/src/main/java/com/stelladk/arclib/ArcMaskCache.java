@@ -0,0 +1,839 @@
+package com.stelladk.arclib;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import androidx.core.os.TraceCompat;
+
+import com.stelladk.arclib.core.ArcDistanceField;
+import com.stelladk.arclib.core.ArcGeometry;
+import com.stelladk.arclib.core.ArcRasterizer;
+import com.stelladk.arclib.core.ArcSpec;
+import com.stelladk.arclib.core.SegmentBuffer;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process-wide cache of the alpha masks used by Arc widgets.
+ * Masks are drawn by the views with {@link ArcRenderStrategy#MASK}: views with
+ * OUTER corners, and any shaped view on a canvas that can not clip with a path.
+ * Other views never read the cache, so the options of this class do not affect them.
+ * Views with the same arcs and size share one reference counted mask.
+ * Masks only store their corner tiles, which are shared between all
+ * the masks with the same corner, so a mask of another size with the same
+ * radii reuses the tiles without rasterizing them again.
+ * Masks that are no longer referenced stay cached and are evicted
+ * in LRU order once the cache grows over its byte budget.
+ * Masks can also be prepared on a background executor before they are
+ * drawn, with concurrent requests for the same key sharing one computation.
+ * Tiles can also be looked up in signed distance fields built once per
+ * corner type, so tiles of new radii never run the rasterizer.
+ * An optional file on disk keeps the tiles across process restarts.
+ *
+ * @see ArcLayout
+ * @see ArcButton
+ */
+public final class ArcMaskCache {
+    private final static String TAG = "ArcMaskCache";
+
+    private final static LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final static HashMap<Key, List<Callback>> pending = new HashMap<>();
+    private final static HashMap<TileKey, Tile> tiles = new HashMap<>();
+    private final static ArcDistanceField[] fields = new ArcDistanceField[12];
+
+    private final static ThreadLocal<Workspace> workspaces = new ThreadLocal<Workspace>(){
+        @Override
+        protected Workspace initialValue(){
+            return new Workspace();
+        }
+    };
+
+    private static Executor executor;
+    private static Handler mainHandler;
+
+    private static long maxSize = Runtime.getRuntime().maxMemory() / 32;
+    private static long size;
+    private static volatile int resolution = 1;
+    private static volatile boolean distanceFields;
+    private static volatile ArcDiskCache diskCache;
+
+    /**
+     * Masks are kept at full resolution while the smallest arc radius
+     * would be below this many pixels of the reduced mask
+     */
+    private final static float MIN_SCALED_RADIUS = 16f;
+    /**
+     * Radius of the arcs the distance fields are built for,
+     * and the distance they extend past the bounds of the curve
+     */
+    private final static int FIELD_RADIUS = 64;
+    private final static int FIELD_MARGIN = 16;
+    private final static int FIELD_SAMPLES = 2;
+    private final static long HASH_SEED = 0xcbf29ce484222325L;
+
+    private ArcMaskCache(){}
+
+    /**
+     * Get the mask for the given key, creating it if it is not cached
+     * Every call must be balanced with a call to {@link #release(Key)}
+     * @param key arcs and size of the mask
+     * @return the shared mask, which must not be modified
+     */
+    public static ArcMask acquire(Key key){
+        synchronized(ArcMaskCache.class){
+            Entry entry = entries.get(key);
+            if(entry != null){
+                entry.refs++;
+                ArcMetrics.onMaskLookup(true);
+                return entry.mask;
+            }
+        }
+
+        ArcMetrics.onMaskLookup(false);
+        ArcMask mask = createMask(key);
+
+        synchronized(ArcMaskCache.class){
+            Entry entry = entries.get(key);
+            if(entry == null){
+                entry = new Entry(mask);
+                entries.put(key, entry);
+            }else{
+                releaseTiles(mask);
+            }
+            entry.refs++;
+            trimToSize(maxSize);
+            return entry.mask;
+        }
+    }
+
+    /**
+     * Release a mask previously acquired
+     * The mask stays cached until it is evicted
+     * @param key arcs and size of the mask
+     */
+    public static synchronized void release(Key key){
+        Entry entry = entries.get(key);
+        if(entry == null || entry.refs == 0) return;
+        entry.refs--;
+        trimToSize(maxSize);
+    }
+
+    /**
+     * @param key arcs and size of the mask
+     * @return true if the mask is cached and {@link #acquire(Key)} will not create it
+     */
+    public static synchronized boolean isCached(Key key){
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Create the mask on the background executor if it is not cached
+     * Requests for a key that is already being created share its computation.
+     * The callback runs on the main thread once the mask is cached,
+     * after which {@link #acquire(Key)} returns it without creating it.
+     * @param key arcs and size of the mask
+     * @param callback notified when the mask is ready, may be null
+     * @return false if the mask was already cached and nothing was scheduled
+     */
+    public static boolean prepare(final Key key, Callback callback){
+        synchronized(ArcMaskCache.class){
+            if(entries.containsKey(key)) return false;
+
+            List<Callback> callbacks = pending.get(key);
+            if(callbacks != null){
+                if(callback != null) callbacks.add(callback);
+                return true;
+            }
+            callbacks = new ArrayList<>(1);
+            if(callback != null) callbacks.add(callback);
+            pending.put(key, callbacks);
+        }
+
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                ArcMask mask = null;
+                try{
+                    mask = createMask(key);
+                }finally {
+                    //A failed mask, like one running out of memory, is not left pending,
+                    //so the next request for the key creates it again
+                    List<Callback> callbacks;
+                    synchronized(ArcMaskCache.class){
+                        if(mask != null) put(key, mask);
+                        callbacks = pending.remove(key);
+                    }
+                    notifyReady(key, callbacks);
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Run the callbacks of a request on the main thread
+     */
+    private static void notifyReady(final Key key, final List<Callback> callbacks){
+        if(callbacks == null || callbacks.isEmpty()) return;
+        getMainHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                for(Callback callback : callbacks){
+                    callback.onMaskReady(key);
+                }
+            }
+        });
+    }
+
+    /**
+     * Create the mask on the calling thread if it is not cached
+     * The mask is cached without a reference, like a prepared mask
+     * @param key arcs and size of the mask
+     * @return the time spent creating the mask in nanoseconds, or -1 if it was already cached
+     */
+    static long warm(Key key){
+        synchronized(ArcMaskCache.class){
+            if(entries.containsKey(key)) return -1;
+        }
+
+        long start = System.nanoTime();
+        ArcMask mask = createMask(key);
+        long duration = System.nanoTime() - start;
+        synchronized(ArcMaskCache.class){
+            put(key, mask);
+        }
+        return duration;
+    }
+
+    /**
+     * Stop notifying a callback about a prepared mask
+     * The mask is still created and cached for later use
+     * @param key arcs and size of the mask
+     * @param callback callback given to {@link #prepare(Key, Callback)}
+     */
+    public static synchronized void cancel(Key key, Callback callback){
+        List<Callback> callbacks = pending.get(key);
+        if(callbacks != null) callbacks.remove(callback);
+    }
+
+    /**
+     * Set the executor masks are prepared on
+     * By default a small pool of background priority threads is used
+     * @param executor executor to create the masks on
+     */
+    public static synchronized void setExecutor(Executor executor){
+        ArcMaskCache.executor = executor;
+    }
+
+    /**
+     * Rasterize masks at a fraction of the view resolution to save memory
+     * Reduced masks are scaled up with bilinear filtering when they are drawn,
+     * masks with arcs too small to scale without visible artifacts stay at full resolution.
+     * Shapes clipped with a path are always drawn at full resolution.
+     * Applies to the keys created afterwards.
+     * @param divisor 1 for full resolution, 2 for half or 4 for a quarter
+     */
+    public static void setResolution(int divisor){
+        resolution = divisor >= 4 ? 4 : divisor >= 2 ? 2 : 1;
+    }
+
+    /**
+     * @return the divisor of the mask resolution
+     */
+    public static int getResolution(){
+        return resolution;
+    }
+
+    /**
+     * Build the corner tiles from signed distance fields instead of rasterizing them
+     * A field is built once for each corner, arc type and outer axis, and looked up
+     * for any radius and resolution, so resizing a view never runs the rasterizer.
+     * Masks with overlapping corners are still rasterized as a whole,
+     * and views clipped with a path have no tiles to build.
+     * Applies to the masks created afterwards.
+     * @param enabled true to look the tiles up in distance fields
+     */
+    public static void setDistanceFieldsEnabled(boolean enabled){
+        distanceFields = enabled;
+    }
+
+    /**
+     * @return true if the corner tiles are looked up in distance fields
+     */
+    public static boolean isDistanceFieldsEnabled(){
+        return distanceFields;
+    }
+
+    /**
+     * Keep the rasterized tiles in a memory mapped file, so they are loaded
+     * instead of rasterized again after the process restarts
+     * Only the tiles of masked views are stored, paths are cheap enough to build on every start.
+     * The file is opened on the mask executor, masks created on the main thread
+     * skip it until it is mapped. Its least recently used tiles are dropped when
+     * it is full. Applies to the masks created afterwards.
+     * <pre>
+     * ArcMaskCache.setDiskCache(new File(context.getCacheDir(), "arc_masks"), 4 << 20);
+     * </pre>
+     * @param file file of the cache, null to not use a disk cache
+     * @param maxBytes size of the file in bytes
+     */
+    public static synchronized void setDiskCache(File file, int maxBytes){
+        final ArcDiskCache disk = file != null ? new ArcDiskCache(file, maxBytes) : null;
+        diskCache = disk;
+        if(disk == null) return;
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                disk.open();
+            }
+        });
+    }
+
+    /**
+     * Set the maximum size of the cache
+     * Masks in use are never evicted, so the cache may grow over it
+     * @param bytes cache budget in bytes
+     */
+    public static synchronized void setMaxSize(long bytes){
+        maxSize = Math.max(0, bytes);
+        trimToSize(maxSize);
+    }
+
+    /**
+     * @return the cache budget in bytes
+     */
+    public static synchronized long getMaxSize(){
+        return maxSize;
+    }
+
+    /**
+     * @return the size of all the cached mask tiles in bytes
+     */
+    public static synchronized long getSize(){
+        return size;
+    }
+
+    /**
+     * Evict all the masks that are not in use and the distance fields
+     */
+    public static synchronized void evictAll(){
+        trimToSize(0);
+        Arrays.fill(fields, null);
+    }
+
+    /**
+     * Evict masks that are not in use until the cache fits in the given size
+     * @param bytes size to trim the cache to
+     */
+    public static synchronized void trim(long bytes){
+        trimToSize(Math.max(0, bytes));
+    }
+
+    static synchronized Executor getExecutor(){
+        if(executor == null){
+            int threads = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 5, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new MaskThreadFactory());
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+        return executor;
+    }
+
+    static synchronized Handler getMainHandler(){
+        if(mainHandler == null){
+            mainHandler = new Handler(Looper.getMainLooper());
+        }
+        return mainHandler;
+    }
+
+    /**
+     * Cache a mask created without a reference, unless another thread cached it first
+     */
+    private static void put(Key key, ArcMask mask){
+        if(!entries.containsKey(key)){
+            entries.put(key, new Entry(mask));
+            trimToSize(maxSize);
+        }else{
+            releaseTiles(mask);
+        }
+    }
+
+    private static void trimToSize(long bytes){
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while(size > bytes && iterator.hasNext()){
+            Entry entry = iterator.next().getValue();
+            if(entry.refs > 0) continue;
+            releaseTiles(entry.mask);
+            iterator.remove();
+            ArcMetrics.onMaskEvicted();
+        }
+    }
+
+    /**
+     * Drop the references of a mask to its tiles, recycling the unused ones
+     */
+    private static void releaseTiles(ArcMask mask){
+        for(int i = 0; i < mask.tiles.length; i++){
+            Bitmap bitmap = mask.tiles[i];
+            if(bitmap == null) continue;
+            if(mask.keys[i] != null){
+                Tile tile = tiles.get(mask.keys[i]);
+                if(tile == null || --tile.refs > 0) continue;
+                tiles.remove(mask.keys[i]);
+            }
+            size -= bitmap.getByteCount();
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * Rasterize the mask off the canvas so it can be built on any thread
+     * The tiles are opaque outside the shape and clear inside it
+     */
+    private static ArcMask createMask(Key key){
+        long start = System.nanoTime();
+        TraceCompat.beginSection("ArcMaskCache.createMask");
+        try{
+            return buildMask(key);
+        }finally {
+            TraceCompat.endSection();
+            ArcMetrics.onMaskBuilt(System.nanoTime() - start);
+        }
+    }
+
+    private static ArcMask buildMask(Key key){
+        Workspace workspace = workspaces.get();
+        ArcGeometry geometry = workspace.geometry;
+        geometry.set(key.spec, key.width, key.height);
+        geometry.emit(workspace.segments);
+        int scale = getScale(geometry, key.resolution);
+        boolean field = distanceFields;
+
+        Rect[] bounds = new Rect[4];
+        for(int corner = 0; corner < bounds.length; corner++){
+            if(!geometry.getCornerBounds(corner, workspace.corner)) continue;
+            Rect tile = new Rect((int) Math.floor(workspace.corner[0]), (int) Math.floor(workspace.corner[1]),
+                    (int) Math.ceil(workspace.corner[2]), (int) Math.ceil(workspace.corner[3]));
+            if(!tile.isEmpty()) bounds[corner] = alignToScale(tile, scale);
+        }
+
+        if(overlaps(bounds)){
+            //Overlapping corners change each other, so the whole mask is rasterized
+            Rect full = alignToScale(new Rect(0, 0, key.width, key.height), scale);
+            Bitmap mask = createTile(workspace, diskKey(key, geometry, scale), null, full, scale);
+            synchronized(ArcMaskCache.class){
+                size += mask.getByteCount();
+            }
+            return new ArcMask(key.width, key.height, null,
+                    new Bitmap[]{mask}, new Rect[]{full}, new TileKey[1]);
+        }
+
+        Bitmap[] bitmaps = new Bitmap[4];
+        TileKey[] keys = new TileKey[4];
+        for(int corner = 0; corner < bounds.length; corner++){
+            if(bounds[corner] == null) continue;
+            int arc = geometry.getArc(corner);
+            keys[corner] = new TileKey(corner, arc, arc == ArcSpec.OUTER ? geometry.getOuterAxis(corner) : 0,
+                    geometry.getRadiusX(corner), geometry.getRadiusY(corner), scale, field);
+            bitmaps[corner] = obtainTile(workspace, keys[corner], bounds[corner], scale);
+        }
+        Rect body = new Rect(geometry.getLeft(), geometry.getTop(), geometry.getRight(), geometry.getBottom());
+        return new ArcMask(key.width, key.height, body, bitmaps, bounds, keys);
+    }
+
+    /**
+     * Get a referenced tile from the cache or rasterize it
+     * Tiles are anchored to the body corners, so their pixels only depend on the corner
+     */
+    private static Bitmap obtainTile(Workspace workspace, TileKey key, Rect bounds, int scale){
+        synchronized(ArcMaskCache.class){
+            Tile tile = tiles.get(key);
+            if(tile != null){
+                tile.refs++;
+                return tile.bitmap;
+            }
+        }
+
+        Bitmap bitmap = createTile(workspace, key.diskKey(), key, bounds, scale);
+
+        synchronized(ArcMaskCache.class){
+            Tile tile = tiles.get(key);
+            if(tile == null){
+                tile = new Tile(bitmap);
+                tiles.put(key, tile);
+                size += bitmap.getByteCount();
+            }else{
+                bitmap.recycle();
+            }
+            tile.refs++;
+            return tile.bitmap;
+        }
+    }
+
+    /**
+     * Load a tile from the disk cache, or create it and store it there
+     * @param diskKey identity of the tile on disk
+     * @param key key of a corner tile, or null for a whole mask which is always rasterized
+     */
+    private static Bitmap createTile(Workspace workspace, long diskKey, TileKey key, Rect bounds, int scale){
+        ArcDiskCache disk = diskCache;
+        //Opening the file may block, so the main thread only uses it once it is mapped
+        if(disk != null && !disk.isOpen() && Looper.myLooper() == Looper.getMainLooper()) disk = null;
+        int width = bounds.width() / scale, height = bounds.height() / scale;
+        if(disk != null){
+            Bitmap bitmap = disk.get(diskKey, width, height);
+            if(bitmap != null) return bitmap;
+        }
+
+        Bitmap bitmap = key != null && key.field ? lookup(workspace, key, bounds, scale) : rasterize(workspace, bounds, scale);
+        //The workspace still holds the pixels the bitmap was copied from
+        if(disk != null) disk.put(diskKey, width, height, workspace.pixels, bitmap.getRowBytes() * height);
+        return bitmap;
+    }
+
+    /**
+     * Identity on disk of a whole mask, from its size, density and the resolved arcs of its geometry
+     */
+    private static long diskKey(Key key, ArcGeometry geometry, int scale){
+        //Tiles start with their corner, so a whole mask starts past the last corner
+        long hash = hash(HASH_SEED, 4);
+        for(int corner = 0; corner < 4; corner++){
+            hash = hash(hash, geometry.getArc(corner));
+            hash = hash(hash, geometry.getOuterAxis(corner));
+            hash = hash(hash, Float.floatToIntBits(geometry.getRadiusX(corner)));
+            hash = hash(hash, Float.floatToIntBits(geometry.getRadiusY(corner)));
+        }
+        hash = hash(hash, key.width);
+        hash = hash(hash, key.height);
+        hash = hash(hash, Float.floatToIntBits(key.density));
+        return hash(hash, scale);
+    }
+
+    /**
+     * 64 bit FNV-1a step, which makes keys on disk far less likely to collide than 32 bit hash codes
+     * Keys that still collide with the same tile size would load the wrong tile
+     */
+    private static long hash(long hash, int value){
+        for(int i = 0; i < 4; i++){
+            hash ^= (value >>> (i * 8)) & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Rasterize the pixels of the mask under the bounds, reduced by the scale
+     * Reduced tiles are anchored to their own bounds, so like full resolution
+     * tiles their pixels only depend on the corner
+     */
+    private static Bitmap rasterize(Workspace workspace, Rect bounds, int scale){
+        int width = bounds.width() / scale, height = bounds.height() / scale;
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ALPHA_8);
+        int stride = bitmap.getRowBytes();
+        byte[] pixels = workspace.obtainPixels(stride * height);
+
+        if(scale == 1){
+            workspace.rasterizer.rasterize(workspace.segments, bounds.left, bounds.top, width, height,
+                    pixels, 0, stride, true);
+        }else{
+            workspace.geometry.emit(workspace.scaled);
+            workspace.scaled.transform(1f / scale, -bounds.left / (float) scale, -bounds.top / (float) scale);
+            workspace.rasterizer.rasterize(workspace.scaled, 0, 0, width, height, pixels, 0, stride, true);
+        }
+
+        bitmap.copyPixelsFromBuffer(ByteBuffer.wrap(pixels, 0, stride * height));
+        return bitmap;
+    }
+
+    /**
+     * Sample the distance field of the corner at the pixel centers of the tile
+     * The field of the corner is stretched from its radius to the radii of the tile
+     * and the distance is turned into the coverage of a pixel of the tile
+     */
+    private static Bitmap lookup(Workspace workspace, TileKey key, Rect bounds, int scale){
+        ArcDistanceField field = obtainField(key.corner, key.arc, key.outerAxis);
+        float[] corner = workspace.corner;
+        workspace.geometry.getCornerBounds(key.corner, corner);
+
+        int width = bounds.width() / scale, height = bounds.height() / scale;
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ALPHA_8);
+        int stride = bitmap.getRowBytes();
+        byte[] pixels = workspace.obtainPixels(stride * height);
+
+        float scaleX = key.radiusX / FIELD_RADIUS, scaleY = key.radiusY / FIELD_RADIUS;
+        float originX = field.getX() + FIELD_MARGIN, originY = field.getY() + FIELD_MARGIN;
+        float sample = scale / (float) FIELD_SAMPLES;
+        for(int row = 0; row < height; row++){
+            for(int column = 0; column < width; column++){
+                //A few samples per pixel keep the coverage right where the arcs meet the body edges
+                float coverage = 0;
+                for(int i = 0; i < FIELD_SAMPLES * FIELD_SAMPLES; i++){
+                    float x = bounds.left + column * scale + (i % FIELD_SAMPLES + 0.5f) * sample;
+                    float y = bounds.top + row * scale + (i / FIELD_SAMPLES + 0.5f) * sample;
+                    float distance = field.sample(originX + (x - corner[0]) / scaleX,
+                            originY + (y - corner[1]) / scaleY, scaleX, scaleY);
+                    coverage += Math.max(0, Math.min(1, 0.5f + distance / sample));
+                }
+                coverage /= FIELD_SAMPLES * FIELD_SAMPLES;
+                pixels[row * stride + column] = (byte) (coverage * 255 + 0.5f);
+            }
+        }
+
+        bitmap.copyPixelsFromBuffer(ByteBuffer.wrap(pixels, 0, stride * height));
+        return bitmap;
+    }
+
+    /**
+     * Get the distance field of a corner type, building it the first time
+     * The field is built for a shape with only that corner, in a view large
+     * enough to keep the other edges of the shape away from the curve
+     */
+    private static ArcDistanceField obtainField(int corner, int arc, int outerAxis){
+        int index = corner * 3 + (arc == ArcSpec.INNER ? 0 : outerAxis == ArcSpec.X_AXIS ? 1 : 2);
+        synchronized(ArcMaskCache.class){
+            if(fields[index] != null) return fields[index];
+        }
+
+        int[] arcs = new int[4];
+        int[] axes = new int[4];
+        float[] radii = new float[4];
+        arcs[corner] = arc;
+        axes[corner] = outerAxis;
+        radii[corner] = FIELD_RADIUS;
+        ArcSpec spec = new ArcSpec(arcs[0], arcs[1], arcs[2], arcs[3], axes[0], axes[1], axes[2], axes[3],
+                radii[0], radii[1], radii[2], radii[3]);
+
+        ArcGeometry geometry = new ArcGeometry();
+        SegmentBuffer segments = new SegmentBuffer();
+        float[] bounds = new float[4];
+        geometry.set(spec, FIELD_RADIUS * 8, FIELD_RADIUS * 8);
+        geometry.emit(segments);
+        geometry.getCornerBounds(corner, bounds);
+        int size = FIELD_RADIUS + FIELD_MARGIN * 2 + 1;
+        ArcDistanceField field = new ArcDistanceField(segments, bounds[0] - FIELD_MARGIN, bounds[1] - FIELD_MARGIN,
+                size, size);
+
+        synchronized(ArcMaskCache.class){
+            if(fields[index] == null) fields[index] = field;
+            return fields[index];
+        }
+    }
+
+    /**
+     * Largest allowed reduction of the mask resolution for the arcs of the geometry
+     */
+    private static int getScale(ArcGeometry geometry, int resolution){
+        float radius = Float.MAX_VALUE;
+        for(int corner = 0; corner < 4; corner++){
+            if(geometry.getArc(corner) == ArcSpec.NONE) continue;
+            radius = Math.min(radius, Math.min(geometry.getRadiusX(corner), geometry.getRadiusY(corner)));
+        }
+        int scale = resolution;
+        while(scale > 1 && radius / scale < MIN_SCALED_RADIUS){
+            scale /= 2;
+        }
+        return scale;
+    }
+
+    /**
+     * Grow the bounds to the right and bottom to a whole number of reduced pixels
+     */
+    private static Rect alignToScale(Rect bounds, int scale){
+        if(scale == 1) return bounds;
+        bounds.right = bounds.left + (bounds.width() + scale - 1) / scale * scale;
+        bounds.bottom = bounds.top + (bounds.height() + scale - 1) / scale * scale;
+        return bounds;
+    }
+
+    private static boolean overlaps(Rect[] bounds){
+        for(int i = 0; i < bounds.length; i++){
+            for(int j = i + 1; j < bounds.length; j++){
+                if(bounds[i] != null && bounds[j] != null && Rect.intersects(bounds[i], bounds[j])) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Listener for masks prepared in the background
+     */
+    public interface Callback {
+        /**
+         * Called on the main thread when the mask is cached, or when creating it failed,
+         * in which case {@link #acquire(Key)} tries to create it again
+         * @param key arcs and size of the mask
+         */
+        void onMaskReady(Key key);
+    }
+
+    private final static class MaskThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, TAG + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Scratch memory reused by the masks created on one thread
+     */
+    private final static class Workspace {
+        private final ArcGeometry geometry = new ArcGeometry();
+        private final SegmentBuffer segments = new SegmentBuffer();
+        private final SegmentBuffer scaled = new SegmentBuffer();
+        private final ArcRasterizer rasterizer = new ArcRasterizer();
+        private final float[] corner = new float[4];
+        private byte[] pixels = new byte[0];
+
+        byte[] obtainPixels(int length){
+            if(pixels.length < length) pixels = new byte[length];
+            return pixels;
+        }
+    }
+
+    private final static class Entry {
+        private final ArcMask mask;
+        private int refs;
+
+        Entry(ArcMask mask){
+            this.mask = mask;
+        }
+    }
+
+    private final static class Tile {
+        private final Bitmap bitmap;
+        private int refs;
+
+        Tile(Bitmap bitmap){
+            this.bitmap = bitmap;
+        }
+    }
+
+    /**
+     * Identifies a corner tile by its arc, resolved radii, resolution and how it was built
+     */
+    final static class TileKey {
+        private final int corner, arc, outerAxis;
+        private final float radiusX, radiusY;
+        private final int scale;
+        private final boolean field;
+
+        TileKey(int corner, int arc, int outerAxis, float radiusX, float radiusY, int scale, boolean field) {
+            this.corner = corner;
+            this.arc = arc;
+            this.outerAxis = outerAxis;
+            this.radiusX = radiusX;
+            this.radiusY = radiusY;
+            this.scale = scale;
+            this.field = field;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) return true;
+            if(!(o instanceof TileKey)) return false;
+            TileKey key = (TileKey) o;
+            return corner == key.corner && arc == key.arc && outerAxis == key.outerAxis && scale == key.scale
+                    && field == key.field
+                    && Float.compare(radiusX, key.radiusX) == 0
+                    && Float.compare(radiusY, key.radiusY) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = corner;
+            result = 31 * result + arc;
+            result = 31 * result + outerAxis;
+            result = 31 * result + Float.floatToIntBits(radiusX);
+            result = 31 * result + Float.floatToIntBits(radiusY);
+            result = 31 * result + scale;
+            result = 31 * result + (field ? 1 : 0);
+            return result;
+        }
+
+        /**
+         * @return the identity of the tile in the disk cache
+         */
+        long diskKey() {
+            long hash = hash(HASH_SEED, corner);
+            hash = hash(hash, arc);
+            hash = hash(hash, outerAxis);
+            hash = hash(hash, Float.floatToIntBits(radiusX));
+            hash = hash(hash, Float.floatToIntBits(radiusY));
+            hash = hash(hash, scale);
+            return hash(hash, field ? 1 : 0);
+        }
+    }
+
+    /**
+     * Identifies a mask by its size, arcs, screen density and resolution
+     */
+    public final static class Key {
+        private final ArcSpec spec;
+        private final int width, height;
+        private final float density;
+        private final int resolution;
+
+        /**
+         * Key of a mask at the current {@link #getResolution() resolution}
+         */
+        public Key(ArcSpec spec, int width, int height, float density) {
+            this(spec, width, height, density, ArcMaskCache.resolution);
+        }
+
+        public Key(ArcSpec spec, int width, int height, float density, int resolution) {
+            this.spec = spec;
+            this.width = width;
+            this.height = height;
+            this.density = density;
+            this.resolution = resolution;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) return true;
+            if(!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return width == key.width && height == key.height && resolution == key.resolution
+                    && Float.compare(density, key.density) == 0
+                    && spec.equals(key.spec);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = spec.hashCode();
+            result = 31 * result + width;
+            result = 31 * result + height;
+            result = 31 * result + Float.floatToIntBits(density);
+            result = 31 * result + resolution;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.stelladk.arclib;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Warm-up of the shared mask cache.
+ * Screens that know the arcs and sizes of their views can create the masks
+ * before the first frame, so the first draw of the views finds them cached
+ * instead of rasterizing them on the main thread.
+ * Only views with OUTER corners are drawn through masks, views with other arcs
+ * are clipped with their path and never read the masks warmed for them.
+ * The masks are created in parallel on the executor of {@link ArcMaskCache}
+ * and are cached like prepared masks, so they count against its budget and
+ * may be evicted if more masks than the budget allows are warmed.
+ *
+ * <pre>
+ * float density = getResources().getDisplayMetrics().density;
+ * ArcMasks.prewarm(Arrays.asList(
+ *         new ArcMaskCache.Key(bubble, width, height, density),
+ *         new ArcMaskCache.Key(button, buttonWidth, buttonHeight, density)), null);
+ * </pre>
+ *
+ * @see ArcMaskCache#setExecutor(Executor)
+ */
+public final class ArcMasks {
+    private final static String TAG = "ArcMasks";
+
+    private ArcMasks(){}
+
+    /**
+     * Notified on the main thread when a warm-up completes
+     */
+    public interface Listener {
+        /**
+         * @param report timing of the warm-up
+         */
+        void onPrewarmed(Report report);
+    }
+
+    /**
+     * Create the masks of the keys that are not cached yet
+     * @param keys arcs and sizes of the masks, of views with OUTER corners
+     * @param listener notified on the main thread once all the masks are cached, may be null
+     * @return a future completed with the timing of the warm-up, which does not need the main thread
+     */
+    public static Future<Report> prewarm(Collection<ArcMaskCache.Key> keys, Listener listener){
+        final Warmup warmup = new Warmup(keys.size(), listener);
+        if(keys.isEmpty()){
+            warmup.complete();
+            return warmup;
+        }
+
+        Executor executor = ArcMaskCache.getExecutor();
+        for(final ArcMaskCache.Key key : new ArrayList<>(keys)){
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    warmup.run(key);
+                }
+            });
+        }
+        return warmup;
+    }
+
+    /**
+     * Timing of a warm-up
+     */
+    public final static class Report {
+        /** Number of masks requested */
+        public final int masks;
+        /** Number of masks created by the warm-up */
+        public final int built;
+        /** Number of masks that were already cached */
+        public final int cached;
+        /** Time from the start of the warm-up until all the masks were cached, in nanoseconds */
+        public final long elapsedNanos;
+        /** Time spent creating the masks summed over all threads, in nanoseconds */
+        public final long buildTimeNanos;
+
+        Report(int masks, int built, int cached, long elapsedNanos, long buildTimeNanos){
+            this.masks = masks;
+            this.built = built;
+            this.cached = cached;
+            this.elapsedNanos = elapsedNanos;
+            this.buildTimeNanos = buildTimeNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "ArcMasks.Report{masks=" + masks + ", built=" + built + ", cached=" + cached
+                    + ", elapsedNanos=" + elapsedNanos + ", buildTimeNanos=" + buildTimeNanos + "}";
+        }
+    }
+
+    /**
+     * Progress of one warm-up, completed by the task of its last mask
+     */
+    private final static class Warmup implements Future<Report> {
+        private final int masks;
+        private final Listener listener;
+        private final long start = System.nanoTime();
+        private final AtomicInteger remaining;
+        private final AtomicInteger built = new AtomicInteger();
+        private final AtomicLong buildTime = new AtomicLong();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean cancelled;
+        private volatile Report report;
+
+        Warmup(int masks, Listener listener){
+            this.masks = masks;
+            this.listener = listener;
+            this.remaining = new AtomicInteger(masks);
+        }
+
+        void run(ArcMaskCache.Key key){
+            try{
+                if(cancelled) return;
+                long duration = ArcMaskCache.warm(key);
+                if(duration >= 0){
+                    built.incrementAndGet();
+                    buildTime.addAndGet(duration);
+                }
+            }finally {
+                if(remaining.decrementAndGet() == 0) complete();
+            }
+        }
+
+        synchronized void complete(){
+            int built = this.built.get();
+            report = new Report(masks, built, masks - built, System.nanoTime() - start, buildTime.get());
+            done.countDown();
+            if(listener == null || cancelled) return;
+            final Report report = this.report;
+            ArcMaskCache.getMainHandler().post(new Runnable() {
+                @Override
+                public void run() {
+                    listener.onPrewarmed(report);
+                }
+            });
+        }
+
+        /**
+         * Skip the masks that were not started yet, masks being created are still cached
+         */
+        @Override
+        public synchronized boolean cancel(boolean mayInterruptIfRunning) {
+            if(done.getCount() == 0) return false;
+            cancelled = true;
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return cancelled || done.getCount() == 0;
+        }
+
+        @Override
+        public Report get() throws InterruptedException {
+            if(cancelled) throw new CancellationException();
+            done.await();
+            if(cancelled) throw new CancellationException();
+            return report;
+        }
+
+        @Override
+        public Report get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+            if(cancelled) throw new CancellationException();
+            if(!done.await(timeout, unit)) throw new TimeoutException();
+            if(cancelled) throw new CancellationException();
+            return report;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.stelladk.arclib;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+
+/**
+ * Memory budget of the Arc widgets.
+ * The cached masks and the pooled offscreen bitmaps are shared by the whole
+ * process, so they are given back when the system runs low on memory or the
+ * app goes to the background. Views rebuild what they need on their next draw.
+ * The callbacks are registered by the first Arc widget attached to a window,
+ * and also drop the parsed attributes when the configuration changes.
+ *
+ * @see ArcMaskCache
+ * @see ArcBitmapPool
+ */
+public final class ArcMemory {
+    private final static String TAG = "ArcMemory";
+
+    private static ComponentCallbacks2 callbacks;
+
+    private ArcMemory(){}
+
+    /**
+     * Trim the caches on the memory callbacks of the application
+     * Called by the Arc widgets, calling it again has no effect
+     * @param context any context of the application
+     */
+    public static synchronized void register(Context context){
+        if(callbacks != null) return;
+        callbacks = new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                ArcMemory.onTrimMemory(level);
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration configuration) {
+                ArcAttributes.clear();
+            }
+
+            @Override
+            public void onLowMemory() {
+                ArcMemory.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+            }
+        };
+        context.getApplicationContext().registerComponentCallbacks(callbacks);
+    }
+
+    /**
+     * Give back memory for the given trim level
+     * Once the UI is hidden nothing is kept apart from the masks of attached views,
+     * while the app is running only part of the caches is dropped
+     * @param level one of the {@link ComponentCallbacks2} trim levels
+     */
+    public static void onTrimMemory(int level){
+        if(level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN){
+            ArcBitmapPool.clear();
+            ArcMaskCache.evictAll();
+        }else if(level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW){
+            ArcBitmapPool.clear();
+            ArcMaskCache.trim(ArcMaskCache.getMaxSize() / 2);
+        }else if(level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE){
+            ArcBitmapPool.trim(ArcBitmapPool.getMaxSize() / 2);
+        }
+    }
+
+    /**
+     * Set the budget shared by the mask cache and the bitmap pool
+     * Two thirds go to the pool, which holds full size bitmaps, and a third to the masks
+     * @param bytes total budget in bytes
+     */
+    public static void setMaxSize(long bytes){
+        bytes = Math.max(0, bytes);
+        ArcBitmapPool.setMaxSize(bytes - bytes / 3);
+        ArcMaskCache.setMaxSize(bytes / 3);
+    }
+
+    /**
+     * @return the budget shared by the mask cache and the bitmap pool in bytes
+     */
+    public static long getMaxSize(){
+        return ArcBitmapPool.getMaxSize() + ArcMaskCache.getMaxSize();
+    }
+
+    /**
+     * @return the size of the cached masks and the idle pooled bitmaps in bytes
+     */
+    public static long getSize(){
+        return ArcBitmapPool.getSize() + ArcMaskCache.getSize();
+    }
+}
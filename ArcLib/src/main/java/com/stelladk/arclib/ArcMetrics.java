@@ -0,0 +1,195 @@
+package com.stelladk.arclib;
+
+import android.view.View;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in counters of the work done by the Arc widgets.
+ * Nothing is measured until {@link #setEnabled(boolean)} is called,
+ * after that every draw, mask build and buffer allocation is counted
+ * and can be read with {@link #snapshot()}. Draws of single views
+ * are reported to the {@link Listener}.
+ * The draw pipeline also emits trace sections, which show up in
+ * system traces whether the counters are enabled or not.
+ *
+ * @see ArcRenderer
+ * @see ArcMaskCache
+ * @see ArcBitmapPool
+ */
+public final class ArcMetrics {
+    private final static String TAG = "ArcMetrics";
+
+    /**
+     * Receives the draws of every Arc widget on the main thread
+     */
+    public interface Listener {
+        /**
+         * @param view view that was drawn
+         * @param strategy {@link ArcRenderStrategy} the view was drawn with
+         * @param durationNanos time spent in the draw of the view, including its content
+         */
+        void onDraw(View view, int strategy, long durationNanos);
+    }
+
+    private static volatile boolean enabled;
+    private static volatile Listener listener;
+
+    private final static AtomicLong draws = new AtomicLong();
+    private final static AtomicLong drawTime = new AtomicLong();
+    private final static AtomicLong maskBuilds = new AtomicLong();
+    private final static AtomicLong maskBuildTime = new AtomicLong();
+    private final static AtomicLong maskHits = new AtomicLong();
+    private final static AtomicLong maskMisses = new AtomicLong();
+    private final static AtomicLong maskEvictions = new AtomicLong();
+    private final static AtomicLong cornerDraws = new AtomicLong();
+    private final static AtomicLong bufferAllocations = new AtomicLong();
+    private final static AtomicLong bufferAllocatedBytes = new AtomicLong();
+    private final static AtomicLong bufferReuses = new AtomicLong();
+
+    private ArcMetrics(){}
+
+    /**
+     * Start or stop counting, the counters keep their values when stopped
+     * @param enabled true to count
+     */
+    public static void setEnabled(boolean enabled){
+        ArcMetrics.enabled = enabled;
+    }
+
+    /**
+     * @return true if the work is counted
+     */
+    public static boolean isEnabled(){
+        return enabled;
+    }
+
+    /**
+     * Set the listener of the draws, only called while the counters are enabled
+     * @param listener listener of the draws, or null to remove it
+     */
+    public static void setListener(Listener listener){
+        ArcMetrics.listener = listener;
+    }
+
+    /**
+     * @return the current values of the counters and the retained bytes of the caches
+     */
+    public static Snapshot snapshot(){
+        return new Snapshot();
+    }
+
+    /**
+     * Set all the counters back to zero
+     */
+    public static void reset(){
+        draws.set(0);
+        drawTime.set(0);
+        maskBuilds.set(0);
+        maskBuildTime.set(0);
+        maskHits.set(0);
+        maskMisses.set(0);
+        maskEvictions.set(0);
+        cornerDraws.set(0);
+        bufferAllocations.set(0);
+        bufferAllocatedBytes.set(0);
+        bufferReuses.set(0);
+    }
+
+    static void onDraw(View view, int strategy, long durationNanos){
+        draws.incrementAndGet();
+        drawTime.addAndGet(durationNanos);
+        Listener listener = ArcMetrics.listener;
+        if(listener != null) listener.onDraw(view, strategy, durationNanos);
+    }
+
+    static void onMaskBuilt(long durationNanos){
+        if(!enabled) return;
+        maskBuilds.incrementAndGet();
+        maskBuildTime.addAndGet(durationNanos);
+    }
+
+    static void onMaskLookup(boolean hit){
+        if(!enabled) return;
+        (hit ? maskHits : maskMisses).incrementAndGet();
+    }
+
+    static void onMaskEvicted(){
+        if(!enabled) return;
+        maskEvictions.incrementAndGet();
+    }
+
+    static void onCornersDrawn(){
+        if(!enabled) return;
+        cornerDraws.incrementAndGet();
+    }
+
+    static void onBufferAcquired(boolean allocated, int bytes){
+        if(!enabled) return;
+        if(allocated){
+            bufferAllocations.incrementAndGet();
+            bufferAllocatedBytes.addAndGet(bytes);
+        }else{
+            bufferReuses.incrementAndGet();
+        }
+    }
+
+    /**
+     * Values of the counters at the time of {@link #snapshot()}
+     */
+    public final static class Snapshot {
+        /** Number of draws of Arc widgets */
+        public final long draws;
+        /** Time spent drawing Arc widgets in nanoseconds */
+        public final long drawTimeNanos;
+        /** Number of masks rasterized */
+        public final long maskBuilds;
+        /** Time spent rasterizing masks in nanoseconds, on any thread */
+        public final long maskBuildTimeNanos;
+        /** Number of masks found in the cache */
+        public final long maskHits;
+        /** Number of masks that had to be built */
+        public final long maskMisses;
+        /** Number of masks evicted from the cache */
+        public final long maskEvictions;
+        /** Number of masked draws that drew the body directly and only the corners offscreen */
+        public final long cornerDraws;
+        /** Number of offscreen bitmaps allocated */
+        public final long bufferAllocations;
+        /** Size of the offscreen bitmaps allocated in bytes */
+        public final long bufferAllocatedBytes;
+        /** Number of offscreen bitmaps reused from the pool */
+        public final long bufferReuses;
+        /** Size of the cached mask tiles in bytes */
+        public final long maskCacheBytes;
+        /** Size of the idle bitmaps of the pool in bytes */
+        public final long bufferPoolBytes;
+
+        private Snapshot(){
+            draws = ArcMetrics.draws.get();
+            drawTimeNanos = drawTime.get();
+            maskBuilds = ArcMetrics.maskBuilds.get();
+            maskBuildTimeNanos = maskBuildTime.get();
+            maskHits = ArcMetrics.maskHits.get();
+            maskMisses = ArcMetrics.maskMisses.get();
+            maskEvictions = ArcMetrics.maskEvictions.get();
+            cornerDraws = ArcMetrics.cornerDraws.get();
+            bufferAllocations = ArcMetrics.bufferAllocations.get();
+            bufferAllocatedBytes = ArcMetrics.bufferAllocatedBytes.get();
+            bufferReuses = ArcMetrics.bufferReuses.get();
+            maskCacheBytes = ArcMaskCache.getSize();
+            bufferPoolBytes = ArcBitmapPool.getSize();
+        }
+
+        @Override
+        public String toString() {
+            return "ArcMetrics{draws=" + draws + ", drawTimeNanos=" + drawTimeNanos
+                    + ", maskBuilds=" + maskBuilds + ", maskBuildTimeNanos=" + maskBuildTimeNanos
+                    + ", maskHits=" + maskHits + ", maskMisses=" + maskMisses + ", maskEvictions=" + maskEvictions
+                    + ", cornerDraws=" + cornerDraws
+                    + ", bufferAllocations=" + bufferAllocations + ", bufferAllocatedBytes=" + bufferAllocatedBytes
+                    + ", bufferReuses=" + bufferReuses
+                    + ", maskCacheBytes=" + maskCacheBytes + ", bufferPoolBytes=" + bufferPoolBytes + "}";
+        }
+    }
+}
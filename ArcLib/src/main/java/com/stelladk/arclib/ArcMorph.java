@@ -0,0 +1,77 @@
+package com.stelladk.arclib;
+
+import android.graphics.Path;
+import android.graphics.RectF;
+
+import com.stelladk.arclib.core.ArcGeometry;
+import com.stelladk.arclib.core.ArcSpec;
+import com.stelladk.arclib.core.SegmentBuffer;
+
+/**
+ * Outline of an arc shape part way through a morph between two specs.
+ * The frames of a morph are only ever clipped with a path, so no mask
+ * is rasterized until the morph settles on its target.
+ *
+ * @see ArcGeometry#lerp(ArcGeometry, ArcGeometry, float)
+ */
+final class ArcMorph {
+    private final static String TAG = "ArcMorph";
+
+    private final ArcSpec from, to;
+    private final ArcGeometry fromGeometry, toGeometry, geometry;
+    private final SegmentBuffer segments;
+    private final Path path;
+    private final RectF oval;
+
+    private int width = -1, height = -1;
+    private float fraction;
+    private boolean dirty = true;
+
+    ArcMorph(ArcSpec from, ArcSpec to){
+        this.from = from;
+        this.to = to;
+        fromGeometry = new ArcGeometry();
+        toGeometry = new ArcGeometry();
+        geometry = new ArcGeometry();
+        segments = new SegmentBuffer();
+        path = new Path();
+        oval = new RectF();
+    }
+
+    /**
+     * @param fraction progress of the morph, 0 at the start and 1 at the target
+     */
+    void setFraction(float fraction){
+        if(this.fraction == fraction) return;
+        this.fraction = fraction;
+        dirty = true;
+    }
+
+    /**
+     * Outline of the current frame, rebuilt only when the fraction or size change
+     */
+    Path getPath(int viewWidth, int viewHeight){
+        if(viewWidth != width || viewHeight != height){
+            fromGeometry.set(from, viewWidth, viewHeight);
+            toGeometry.set(to, viewWidth, viewHeight);
+            width = viewWidth;
+            height = viewHeight;
+            dirty = true;
+        }
+        if(dirty){
+            geometry.lerp(fromGeometry, toGeometry, fraction);
+            geometry.emit(segments);
+            ArcShape.toPath(segments, path, oval);
+            dirty = false;
+        }
+        return path;
+    }
+
+    /**
+     * @return true if the point is inside the outline of the current frame
+     */
+    boolean contains(float x, float y, int viewWidth, int viewHeight){
+        getPath(viewWidth, viewHeight);
+        return geometry.contains(x, y);
+    }
+}
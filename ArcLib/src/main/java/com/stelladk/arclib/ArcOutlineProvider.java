@@ -0,0 +1,28 @@
+package com.stelladk.arclib;
+
+import android.graphics.Outline;
+import android.os.Build;
+import android.view.View;
+import android.view.ViewOutlineProvider;
+
+import androidx.annotation.RequiresApi;
+
+/**
+ * Round rect outline used to clip views classified as {@link ArcRenderStrategy#OUTLINE}
+ */
+@RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+class ArcOutlineProvider extends ViewOutlineProvider {
+    private int width, height;
+    private float radius;
+
+    void set(int width, int height, float radius){
+        this.width = width;
+        this.height = height;
+        this.radius = radius;
+    }
+
+    @Override
+    public void getOutline(View view, Outline outline) {
+        outline.setRoundRect(0, 0, width, height, radius);
+    }
+}
@@ -0,0 +1,103 @@
+package com.stelladk.arclib;
+
+import android.graphics.Path;
+import android.graphics.RectF;
+
+import androidx.core.os.TraceCompat;
+
+import com.stelladk.arclib.core.ArcGeometry;
+import com.stelladk.arclib.core.ArcSpec;
+import com.stelladk.arclib.core.SegmentBuffer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small LRU cache of shape outlines keyed by their arcs and size.
+ * Unlike {@link ArcShape}, which only keeps the path of its last size,
+ * views and drawables of different sizes drawn in the same frame
+ * do not evict each other's path.
+ * Instances are not thread safe and are meant to be used on the main thread.
+ *
+ * @see ArcDrawable
+ * @see ArcItemDecoration
+ */
+final class ArcPathCache {
+    private final static String TAG = "ArcPathCache";
+
+    private final LinkedHashMap<PathKey, Path> paths;
+    private final ArcGeometry geometry = new ArcGeometry();
+    private final SegmentBuffer segments = new SegmentBuffer();
+    private final RectF oval = new RectF();
+    private final PathKey lookup = new PathKey();
+
+    /**
+     * @param maxSize number of paths kept before the least recently used one is dropped
+     */
+    ArcPathCache(final int maxSize){
+        paths = new LinkedHashMap<PathKey, Path>(maxSize, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PathKey, Path> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Outline of a shape of the given size, built the first time it is asked for
+     * @param spec arcs of the shape
+     * @param width width of the shape
+     * @param height height of the shape
+     * @return the shape outline, which must not be modified
+     */
+    Path getPath(ArcSpec spec, int width, int height){
+        lookup.set(spec, width, height);
+        Path path = paths.get(lookup);
+        if(path != null) return path;
+
+        TraceCompat.beginSection("ArcPathCache.getPath");
+        geometry.set(spec, width, height);
+        geometry.emit(segments);
+        path = new Path();
+        ArcShape.toPath(segments, path, oval);
+        PathKey key = new PathKey();
+        key.set(spec, width, height);
+        paths.put(key, path);
+        TraceCompat.endSection();
+        return path;
+    }
+
+    /**
+     * Drop all the paths
+     */
+    void clear(){
+        paths.clear();
+    }
+
+    private final static class PathKey {
+        private ArcSpec spec;
+        private int width, height;
+
+        void set(ArcSpec spec, int width, int height){
+            this.spec = spec;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) return true;
+            if(!(o instanceof PathKey)) return false;
+            PathKey key = (PathKey) o;
+            return width == key.width && height == key.height && spec.equals(key.spec);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = spec.hashCode();
+            result = 31 * result + width;
+            result = 31 * result + height;
+            return result;
+        }
+    }
+}
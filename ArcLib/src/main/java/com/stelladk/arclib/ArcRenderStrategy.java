@@ -0,0 +1,92 @@
+package com.stelladk.arclib;
+
+import android.graphics.Canvas;
+import android.os.Build;
+
+import com.stelladk.arclib.core.ArcSpec;
+
+/**
+ * Classifies arc configurations so that each one is drawn
+ * with the cheapest renderer that can reproduce it
+ *
+ * @see ArcShape
+ */
+public final class ArcRenderStrategy {
+    private final static String TAG = "ArcRenderStrategy";
+
+    /**
+     * Static variable for shapes without arcs, drawn as they are
+     */
+    public final static int RECT = 0;
+    /**
+     * Static variable for round rects clipped by the view outline
+     */
+    public final static int OUTLINE = 1;
+    /**
+     * Static variable for convex shapes clipped with a path
+     */
+    public final static int CLIP_PATH = 2;
+    /**
+     * Static variable for concave shapes composited through an offscreen buffer and a mask,
+     * also used instead of {@link #CLIP_PATH} on canvases that can not clip with a path
+     */
+    public final static int MASK = 3;
+
+    private ArcRenderStrategy(){}
+
+    /**
+     * Find the cheapest renderer for an arc configuration
+     * @param spec arcs of the shape
+     * @param width width of the shape
+     * @param height height of the shape
+     * @return one of {@link #RECT}, {@link #OUTLINE}, {@link #CLIP_PATH} or {@link #MASK}
+     */
+    public static int classify(ArcSpec spec, int width, int height){
+        if(spec.hasArc(ArcShape.OUTER)){
+            //Hardware canvases clip paths without anti-aliasing before API 28,
+            //which shows on the long concave curves of outer arcs
+            return MASK;
+        }
+        if(spec.allArcs(ArcShape.NONE)){
+            return RECT;
+        }
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && spec.allArcs(ArcShape.INNER)){
+            float radius = spec.getRadius(ArcSpec.TOP_LEFT);
+            if(radius == spec.getRadius(ArcSpec.TOP_RIGHT) && radius == spec.getRadius(ArcSpec.BOTTOM_LEFT)
+                    && radius == spec.getRadius(ArcSpec.BOTTOM_RIGHT)){
+                //Outlines only support circular corners that do not overlap
+                radius = getOutlineRadius(radius, width, height);
+                if(radius >= 0 && radius * 2 <= Math.min(width, height)) return OUTLINE;
+            }
+        }
+        return CLIP_PATH;
+    }
+
+    /**
+     * Corner radius of an {@link #OUTLINE} shape
+     * @param radius radius of the arcs
+     * @return the corner radius or -1 if the default arcs are not circular
+     */
+    static float getOutlineRadius(float radius, int width, int height){
+        if(radius != -1) return radius;
+        return width == height ? width * 3/8F : -1;
+    }
+
+    /**
+     * Hardware canvases support clip ops other than intersect, like clipping out a rect, since API 18
+     * @param canvas canvas to clip
+     * @return true if rects can be removed from the clip of the canvas
+     */
+    static boolean canClipOut(Canvas canvas){
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2 || !canvas.isHardwareAccelerated();
+    }
+
+    /**
+     * Hardware canvases support clipPath since API 18
+     * @param canvas canvas to clip
+     * @return true if the canvas can be clipped with a path
+     */
+    static boolean canClipPath(Canvas canvas){
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2 || !canvas.isHardwareAccelerated();
+    }
+}
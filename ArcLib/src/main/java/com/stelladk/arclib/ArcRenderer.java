@@ -0,0 +1,850 @@
+package com.stelladk.arclib;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+import android.os.Build;
+import android.util.AttributeSet;
+import android.view.Choreographer;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewOutlineProvider;
+import android.view.ViewParent;
+
+import androidx.core.os.TraceCompat;
+
+import com.stelladk.arclib.core.ArcSpec;
+
+import java.util.WeakHashMap;
+
+/**
+ * Draws a view with customisable arc corners.
+ * Holds the arcs, the shared mask and the offscreen buffers of a view
+ * and runs the whole draw pipeline, so any view can get arc corners
+ * by forwarding its size changes, attach state and draw calls.
+ *
+ * <pre>
+ * public class ArcTextView extends TextView implements ArcRenderer.Host {
+ *     private final ArcRenderer renderer = new ArcRenderer(this);
+ *
+ *     public View getView() { return this; }
+ *     public void drawContent(Canvas canvas) { super.draw(canvas); }
+ *
+ *     public void draw(Canvas canvas) { renderer.draw(canvas); }
+ *     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+ *         super.onSizeChanged(w, h, oldw, oldh);
+ *         renderer.onSizeChanged(w, h);
+ *     }
+ *     ...
+ * }
+ * </pre>
+ *
+ * @see ArcLayout
+ * @see ArcButton
+ * @see ArcImageView
+ */
+public class ArcRenderer {
+    private final static String TAG = "ArcRenderer";
+
+    /**
+     * Paints shared by all the renderers, they are only used on the main thread and never changed
+     */
+    private final static Paint BITMAP_PAINT = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final static Paint CLEAR_PAINT = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+    static {
+        CLEAR_PAINT.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
+    }
+
+    /**
+     * View drawn by the renderer
+     */
+    public interface Host {
+        /**
+         * @return the view the arcs are applied to
+         */
+        View getView();
+
+        /**
+         * Draw the content of the view, usually by calling super.draw
+         * @param canvas to draw the content into
+         */
+        void drawContent(Canvas canvas);
+    }
+
+    private final Host host;
+    private int width, height;
+
+    private ArcSpec spec;
+    private ArcSpec scheduledSpec;
+    private ArcEditor.Target editTarget;
+    private Choreographer.FrameCallback redrawCallback;
+    private ArcMorph morph;
+    private ValueAnimator morphAnimator;
+    private ArcShape shape;
+    private int renderStrategy;
+    private ArcOutlineProvider outlineProvider;
+
+    private ArcMask mask;
+    private ArcMaskCache.Key maskKey;
+    private ArcMaskCache.Key pendingMaskKey;
+    private final ArcMaskCache.Callback maskCallback;
+    private Bitmap offscreenBitmap;
+    private final Canvas offscreenCanvas;
+    private final Bitmap[] cornerBitmaps;
+    private final Canvas cornerCanvas;
+    private final Rect dirtyRect, descendantRect;
+    private boolean fullRedraw = true;
+    /**
+     * Where the invalidated descendants were last seen, so the buffers are also
+     * drawn again where a descendant was before it moved
+     */
+    private final WeakHashMap<View, Rect> descendantBounds = new WeakHashMap<>();
+
+    private final int[] arcs = new int[4];
+    private final int[] outerAxes = new int[4];
+    private final float[] radii = new float[4];
+
+    private boolean stroke;
+    private int strokeColor = Color.WHITE;
+    private float strokeWidth = 10;
+    private final ArcStroke strokeLayer = new ArcStroke();
+
+    public ArcRenderer(Host host){
+        this.host = host;
+
+        for(int corner = 0; corner < 4; corner++){
+            arcs[corner] = ArcShape.NONE;
+            outerAxes[corner] = ArcShape.Y_AXIS;
+            radii[corner] = -1;
+        }
+
+        offscreenCanvas = new Canvas();
+        cornerBitmaps = new Bitmap[4];
+        cornerCanvas = new Canvas();
+        dirtyRect = new Rect();
+        descendantRect = new Rect();
+
+        maskCallback = new ArcMaskCache.Callback() {
+            @Override
+            public void onMaskReady(ArcMaskCache.Key key) {
+                if(!key.equals(pendingMaskKey)) return;
+                pendingMaskKey = null;
+                ArcRenderer.this.host.getView().invalidate();
+            }
+        };
+    }
+
+    /**
+     * Read the arcs and stroke from the {@link R.styleable#ArcLayout} attributes
+     * @param context context of the view
+     * @param attrs attributes of the view
+     * @param defStyleAttr default style attribute of the view
+     */
+    public void loadAttributes(Context context, AttributeSet attrs, int defStyleAttr){
+        applyAttributes(ArcAttributes.obtain(context, attrs, defStyleAttr, false));
+    }
+
+    /**
+     * Take the arcs and stroke of parsed attributes
+     * @param attributes attributes shared with other views, which are not modified
+     */
+    void applyAttributes(ArcAttributes attributes){
+        for(int corner = 0; corner < 4; corner++){
+            arcs[corner] = attributes.spec.getArc(corner);
+            outerAxes[corner] = attributes.spec.getOuterAxis(corner);
+            radii[corner] = attributes.spec.getRadius(corner);
+        }
+        stroke = attributes.stroke;
+        strokeColor = attributes.strokeColor;
+        strokeWidth = attributes.strokeWidth;
+        strokeLayer.setAlignment(attributes.strokeAlignment);
+        strokeLayer.setDash(attributes.strokeDashLength, attributes.strokeDashGap);
+        if(attributes.strokeGradient){
+            strokeLayer.setGradient(attributes.strokeStartColor, attributes.strokeEndColor, attributes.strokeGradientAngle);
+        }else{
+            strokeLayer.clearGradient();
+        }
+        //The parsed spec is immutable, so it is shared until the arcs are changed
+        spec = attributes.spec;
+    }
+
+    /**
+     * Set the arc type of a corner, takes effect on {@link #redraw()}
+     * @param corner one of the {@link ArcSpec} corners
+     * @param arc value that determines arc type
+     */
+    public void setArc(int corner, int arc){
+        arcs[corner] = ArcEditor.clampArc(arc);
+        spec = null;
+    }
+
+    /**
+     * Set the axis for the outer arc of a corner, takes effect on {@link #redraw()}
+     * @param corner one of the {@link ArcSpec} corners
+     * @param axis outer arc axis
+     */
+    public void setOuterAxis(int corner, int axis){
+        outerAxes[corner] = ArcEditor.clampAxis(axis);
+        spec = null;
+    }
+
+    /**
+     * Set the arc radius of a corner, takes effect on {@link #redraw()}
+     * @param corner one of the {@link ArcSpec} corners
+     * @param radius arc radius
+     */
+    public void setRadius(int corner, float radius){
+        radii[corner] = radius;
+        spec = null;
+    }
+
+    /**
+     * Add stroke to the view
+     * @param stroke if true add stroke
+     */
+    public void setStroke(boolean stroke){
+        this.stroke = stroke;
+    }
+
+    /**
+     * Set stroke color
+     * @param color stroke color
+     */
+    public void setStrokeColor(int color){
+        this.strokeColor = color;
+    }
+
+    /**
+     * Set stroke width
+     * @param width stroke width
+     */
+    public void setStrokeWidth(float width){
+        this.strokeWidth = width;
+    }
+
+    /**
+     * Set the side of the outline the stroke is drawn on
+     * @param alignment one of {@link ArcShape#STROKE_INSIDE}, {@link ArcShape#STROKE_CENTER}
+     *                  or {@link ArcShape#STROKE_OUTSIDE}
+     */
+    public void setStrokeAlignment(int alignment){
+        strokeLayer.setAlignment(alignment);
+    }
+
+    /**
+     * Dash the stroke, the dashes are stretched to fit evenly around the outline
+     * @param dashLength length of the dashes, 0 for a solid stroke
+     * @param dashGap length of the gaps between the dashes
+     */
+    public void setStrokeDash(float dashLength, float dashGap){
+        strokeLayer.setDash(dashLength, dashGap);
+    }
+
+    /**
+     * Paint the stroke with a linear gradient instead of the stroke color
+     * @param startColor color at the start of the gradient
+     * @param endColor color at the end of the gradient
+     * @param angle direction of the gradient in degrees, 0 for left to right
+     */
+    public void setStrokeGradient(int startColor, int endColor, float angle){
+        strokeLayer.setGradient(startColor, endColor, angle);
+    }
+
+    /**
+     * Paint the stroke with the stroke color again
+     */
+    public void clearStrokeGradient(){
+        strokeLayer.clearGradient();
+    }
+
+    /**
+     * @return the arcs of the view
+     */
+    public ArcSpec getSpec(){
+        if(spec == null){
+            spec = new ArcSpec(
+                    arcs[ArcSpec.TOP_LEFT], arcs[ArcSpec.TOP_RIGHT], arcs[ArcSpec.BOTTOM_LEFT], arcs[ArcSpec.BOTTOM_RIGHT],
+                    outerAxes[ArcSpec.TOP_LEFT], outerAxes[ArcSpec.TOP_RIGHT], outerAxes[ArcSpec.BOTTOM_LEFT], outerAxes[ArcSpec.BOTTOM_RIGHT],
+                    radii[ArcSpec.TOP_LEFT], radii[ArcSpec.TOP_RIGHT], radii[ArcSpec.BOTTOM_LEFT], radii[ArcSpec.BOTTOM_RIGHT]);
+        }
+        return spec;
+    }
+
+    /**
+     * Start a batch of changes to the arcs and stroke
+     * Nothing changes until {@link ArcEditor#apply()} is called,
+     * which redraws the view at most once per frame
+     * @return an editor holding the current values
+     */
+    public ArcEditor edit(){
+        if(editTarget == null){
+            editTarget = new ArcEditor.Target() {
+                @Override
+                public ArcSpec getSpec() {
+                    return ArcRenderer.this.getSpec();
+                }
+
+                @Override
+                public boolean hasStroke() {
+                    return stroke;
+                }
+
+                @Override
+                public int getStrokeColor() {
+                    return strokeColor;
+                }
+
+                @Override
+                public float getStrokeWidth() {
+                    return strokeWidth;
+                }
+
+                @Override
+                public void apply(ArcSpec spec, boolean stroke, int strokeColor, float strokeWidth) {
+                    applyEdit(spec, stroke, strokeColor, strokeWidth);
+                }
+
+                @Override
+                public void animate(ArcSpec spec, boolean stroke, int strokeColor, float strokeWidth, long duration) {
+                    animateEdit(spec, stroke, strokeColor, strokeWidth, duration);
+                }
+            };
+        }
+        return new ArcEditor(editTarget);
+    }
+
+    /**
+     * Rebuild the shape after the arcs changed and draw the view again
+     */
+    public void redraw(){
+        stopMorph();
+        releaseMask();
+        updateRenderStrategy(width, height);
+        requestMask(width, height);
+        host.getView().invalidate();
+    }
+
+    /**
+     * Called by the host when its size changes
+     * @param width width of the shape
+     * @param height height of the shape
+     */
+    public void onSizeChanged(int width, int height){
+        releaseMask();
+        releaseOffscreen();
+        releaseCorners();
+
+        this.width = width;
+        this.height = height;
+
+        updateRenderStrategy(width, height);
+        requestMask(width, height);
+    }
+
+    /**
+     * Called by the host when it is attached to a window
+     */
+    public void onAttachedToWindow(){
+        ArcMemory.register(host.getView().getContext());
+        requestMask(width, height);
+    }
+
+    /**
+     * Called by the host when it is detached from its window
+     * The mask and the buffers are given back and rebuilt on the next draw
+     */
+    public void onDetachedFromWindow(){
+        releaseMask();
+        releaseOffscreen();
+        releaseCorners();
+        if(morph != null){
+            //Settle on the target arcs
+            stopMorph();
+            updateRenderStrategy(width, height);
+        }
+    }
+
+    /**
+     * Called by the host when the whole view has to be drawn again,
+     * so the buffers kept from the last draw cannot be reused
+     */
+    public void onContentInvalidated(){
+        fullRedraw = true;
+    }
+
+    /**
+     * Called by a host {@link ViewGroup} when a descendant is invalidated by a hardware accelerated window.
+     * The masked buffers hold the descendants, so the host has to be drawn again,
+     * but only the regions of the buffers under the descendant are stale.
+     * @param target invalidated descendant
+     * @return true if the host has to be invalidated
+     */
+    public boolean onDescendantInvalidated(View target){
+        if(mask == null) return false;
+        addDirtyDescendant(target);
+        return true;
+    }
+
+    /**
+     * Called by a host {@link ViewGroup} when a descendant is invalidated through
+     * {@link ViewGroup#invalidateChildInParent(int[], Rect)}
+     * @param dirty region of the host the descendant covers
+     * @return true if the masked buffers hold the descendant
+     */
+    public boolean onChildInvalidated(Rect dirty){
+        if(mask == null) return false;
+        dirtyRect.union(dirty);
+        return true;
+    }
+
+    /**
+     * Draws the view with its arcs on the canvas
+     * @param canvas to draw the view into
+     */
+    public void draw(Canvas canvas){
+        boolean measure = ArcMetrics.isEnabled();
+        long start = measure ? System.nanoTime() : 0;
+        TraceCompat.beginSection("ArcRenderer.draw");
+
+        int strategy = renderStrategy;
+        if(strategy == ArcRenderStrategy.CLIP_PATH && !ArcRenderStrategy.canClipPath(canvas)){
+            strategy = ArcRenderStrategy.MASK;
+        }
+
+        if(strategy == ArcRenderStrategy.MASK){
+            drawMasked(canvas);
+        }else if(strategy == ArcRenderStrategy.CLIP_PATH){
+            drawClipped(canvas);
+        }else{
+            //Rects need no clipping and outlines are clipped by the view itself
+            host.drawContent(canvas);
+        }
+
+        //Stroke
+        if(stroke){
+            strokeLayer.setColor(strokeColor);
+            strokeLayer.setWidth(strokeWidth);
+            strokeLayer.draw(canvas, getPath(width, height), width, height, morph == null);
+        }
+
+        dirtyRect.setEmpty();
+        fullRedraw = mask == null;
+
+        TraceCompat.endSection();
+        if(measure) ArcMetrics.onDraw(host.getView(), strategy, System.nanoTime() - start);
+    }
+
+    /**
+     * Check if a point of the host lies inside the shape
+     * Answered from the arcs of the corners, so it is cheap enough for every touch
+     * @param x x in view coordinates
+     * @param y y in view coordinates
+     * @return true if the point is inside the shape or the frame of a running morph
+     */
+    public boolean contains(float x, float y){
+        if(width <= 0 || height <= 0) return false;
+        return morph != null ? morph.contains(x, y, width, height) : getShape().contains(x, y, width, height);
+    }
+
+    /**
+     * Filter the touches of the host to its shape
+     * Gestures starting outside the shape are not dispatched to the host,
+     * so they reach the views under it instead
+     * @param event event given to dispatchTouchEvent of the host
+     * @return false if the host should not dispatch the event
+     */
+    public boolean acceptsTouch(MotionEvent event){
+        return event.getActionMasked() != MotionEvent.ACTION_DOWN || contains(event.getX(), event.getY());
+    }
+
+    /**
+     * Draw through an offscreen buffer and clear everything outside the shape with the mask
+     */
+    private void drawMasked(Canvas canvas){
+        if(mask == null){
+            ArcMaskCache.Key key = createMaskKey(width, height);
+            if(key.equals(pendingMaskKey) && !ArcMaskCache.isCached(key) && ArcRenderStrategy.canClipPath(canvas)){
+                //Clip with the path until the mask is prepared
+                drawClipped(canvas);
+                return;
+            }
+            cancelMaskRequest();
+            maskKey = key;
+            mask = ArcMaskCache.acquire(maskKey);
+        }
+
+        //Only descendants were invalidated since the last draw
+        Rect dirty = fullRedraw || dirtyRect.isEmpty() ? null : dirtyRect;
+
+        if(canDrawCorners(canvas)){
+            releaseOffscreen();
+            drawCorners(canvas, dirty);
+            return;
+        }
+        releaseCorners();
+
+        if(dirty != null && offscreenBitmap != null
+                && offscreenBitmap.getWidth() == width && offscreenBitmap.getHeight() == height){
+            //Draw again just the dirty region of the retained buffer
+            int saveCount = offscreenCanvas.save();
+            offscreenCanvas.clipRect(dirty);
+            offscreenCanvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+            host.drawContent(offscreenCanvas);
+            mask.draw(offscreenCanvas, CLEAR_PAINT);
+            offscreenCanvas.restoreToCount(saveCount);
+        }else{
+            Canvas offscreenCanvas = obtainOffscreen(width, height);
+            host.drawContent(offscreenCanvas);
+            mask.draw(offscreenCanvas, CLEAR_PAINT);
+        }
+        canvas.drawBitmap(offscreenBitmap, 0f, 0f, BITMAP_PAINT);
+    }
+
+    /**
+     * Corner compositing pays for one extra pass over the content per corner,
+     * so it is only used while the corners cover at most half of the view
+     * The body is drawn with the corner tiles clipped out, which needs no path clipping.
+     */
+    private boolean canDrawCorners(Canvas canvas){
+        if(mask.isFullSize() || !ArcRenderStrategy.canClipOut(canvas)) return false;
+        return (long) mask.getCornerArea() * 2 <= (long) width * height;
+    }
+
+    /**
+     * Draw the body straight into the canvas and only send the corners
+     * through small offscreen buffers and their mask tiles
+     * @param dirty region invalidated by descendants, or null to draw all the corners again
+     */
+    private void drawCorners(Canvas canvas, Rect dirty){
+        ArcMetrics.onCornersDrawn();
+        int saveCount = canvas.save();
+        canvas.clipRect(mask.body);
+        for(Rect bounds : mask.bounds){
+            if(bounds != null) ArcMask.clipOut(canvas, bounds);
+        }
+        host.drawContent(canvas);
+        canvas.restoreToCount(saveCount);
+
+        for(int i = 0; i < mask.tiles.length; i++){
+            if(mask.tiles[i] == null) continue;
+            Rect bounds = mask.bounds[i];
+            Bitmap corner = cornerBitmaps[i];
+            boolean retained = dirty != null && corner != null
+                    && corner.getWidth() == bounds.width() && corner.getHeight() == bounds.height();
+
+            //Corners away from the dirty region keep their composited pixels
+            if(!retained || Rect.intersects(dirty, bounds)){
+                Canvas cornerCanvas = obtainCorner(i, bounds.width(), bounds.height());
+
+                int cornerSaveCount = cornerCanvas.save();
+                cornerCanvas.translate(-bounds.left, -bounds.top);
+                host.drawContent(cornerCanvas);
+                cornerCanvas.restoreToCount(cornerSaveCount);
+
+                mask.drawTile(cornerCanvas, i, 0, 0, CLEAR_PAINT);
+            }
+            canvas.drawBitmap(cornerBitmaps[i], bounds.left, bounds.top, BITMAP_PAINT);
+        }
+    }
+
+    /**
+     * Draw straight into the canvas clipped by the shape outline
+     */
+    private void drawClipped(Canvas canvas){
+        int saveCount = canvas.save();
+        canvas.clipPath(getPath(width, height));
+        host.drawContent(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+
+    /**
+     * Pick the renderer for the current arcs and size
+     * and set up the outline clipping if it is needed
+     */
+    private void updateRenderStrategy(int width, int height){
+        //Morph frames are only clipped with a path
+        renderStrategy = morph != null ? ArcRenderStrategy.CLIP_PATH : ArcRenderStrategy.classify(getSpec(), width, height);
+        if(renderStrategy != ArcRenderStrategy.MASK){
+            releaseOffscreen();
+            releaseCorners();
+        }
+
+        if(Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) return;
+        View view = host.getView();
+        if(renderStrategy == ArcRenderStrategy.OUTLINE){
+            if(outlineProvider == null){
+                outlineProvider = new ArcOutlineProvider();
+            }
+            outlineProvider.set(width, height, ArcRenderStrategy.getOutlineRadius(radii[ArcSpec.TOP_LEFT], width, height));
+            view.setOutlineProvider(outlineProvider);
+            view.setClipToOutline(true);
+            view.invalidateOutline();
+        }else if(outlineProvider != null){
+            outlineProvider = null;
+            view.setOutlineProvider(ViewOutlineProvider.BACKGROUND);
+            view.setClipToOutline(false);
+        }
+    }
+
+    /**
+     * Prepare the mask in the background as soon as the size is known
+     * so the first masked draw does not have to rasterize it
+     */
+    private void requestMask(int width, int height){
+        if(renderStrategy != ArcRenderStrategy.MASK || mask != null) return;
+        if(width <= 0 || height <= 0) return;
+
+        ArcMaskCache.Key key = createMaskKey(width, height);
+        if(key.equals(pendingMaskKey)) return;
+        cancelMaskRequest();
+        if(ArcMaskCache.prepare(key, maskCallback)){
+            pendingMaskKey = key;
+        }
+    }
+
+    private void cancelMaskRequest(){
+        if(pendingMaskKey == null) return;
+        ArcMaskCache.cancel(pendingMaskKey, maskCallback);
+        pendingMaskKey = null;
+    }
+
+    private ArcMaskCache.Key createMaskKey(int width, int height){
+        return new ArcMaskCache.Key(getSpec(), width, height, host.getView().getResources().getDisplayMetrics().density);
+    }
+
+    /**
+     * Add the bounds of an invalidated descendant to the dirty region,
+     * together with the bounds it had when it was last invalidated
+     * Descendants seen for the first time draw everything again.
+     */
+    private void addDirtyDescendant(View target){
+        View root = host.getView();
+        for(View view = target; view != root; ){
+            ViewParent parent = view.getParent();
+            if(!view.getMatrix().isIdentity() || !(parent instanceof View)){
+                //Transformed descendants may have moved and their old bounds are unknown,
+                //also once the transform goes back to identity
+                descendantBounds.remove(target);
+                fullRedraw = true;
+                return;
+            }
+            view = (View) parent;
+        }
+        descendantRect.set(0, 0, target.getWidth(), target.getHeight());
+        ((ViewGroup) root).offsetDescendantRectToMyCoords(target, descendantRect);
+
+        //Offsets and layout changes are reported after the move, so the old bounds are stale too
+        Rect previous = descendantBounds.get(target);
+        if(previous == null){
+            descendantBounds.put(target, new Rect(descendantRect));
+            fullRedraw = true;
+            return;
+        }
+        dirtyRect.union(previous);
+        dirtyRect.union(descendantRect);
+        previous.set(descendantRect);
+    }
+
+    /**
+     * Give back the shared mask, it is acquired again on the next draw
+     */
+    private void releaseMask(){
+        cancelMaskRequest();
+        fullRedraw = true;
+        if(maskKey != null){
+            ArcMaskCache.release(maskKey);
+            maskKey = null;
+        }
+        mask = null;
+    }
+
+    private void applyEdit(ArcSpec spec, boolean stroke, int strokeColor, float strokeWidth){
+        if(morph != null && !spec.equals(getSpec())){
+            stopMorph();
+        }
+
+        boolean strokeChanged = stroke != this.stroke || strokeColor != this.strokeColor
+                || strokeWidth != this.strokeWidth;
+        this.stroke = stroke;
+        this.strokeColor = strokeColor;
+        this.strokeWidth = strokeWidth;
+
+        ArcSpec current = getSpec();
+        if(!spec.equals(current)){
+            setSpec(spec);
+            scheduleRedraw(current);
+        }else if(strokeChanged){
+            host.getView().invalidate();
+        }
+    }
+
+    private void animateEdit(ArcSpec spec, boolean stroke, int strokeColor, float strokeWidth, long duration){
+        ArcSpec current = getSpec();
+        boolean canMorph = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2
+                || !host.getView().isHardwareAccelerated();
+        if(duration <= 0 || !canMorph || spec.equals(current)){
+            applyEdit(spec, stroke, strokeColor, strokeWidth);
+            return;
+        }
+        this.stroke = stroke;
+        this.strokeColor = strokeColor;
+        this.strokeWidth = strokeWidth;
+
+        //A running morph is replaced and the new one starts from its target
+        stopMorph();
+        setSpec(spec);
+        morph = new ArcMorph(current, spec);
+        releaseMask();
+        updateRenderStrategy(width, height);
+
+        morphAnimator = ValueAnimator.ofFloat(0f, 1f);
+        morphAnimator.setDuration(duration);
+        morphAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animation) {
+                if(morph == null) return;
+                morph.setFraction((float) animation.getAnimatedValue());
+                host.getView().invalidate();
+            }
+        });
+        morphAnimator.addListener(new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                if(morphAnimator != animation) return;
+                morphAnimator = null;
+                morph = null;
+                //The mask of the target arcs is only built now
+                redraw();
+            }
+        });
+        morphAnimator.start();
+    }
+
+    /**
+     * Stop the running morph, leaving the view on its target arcs
+     * Callers must update the render strategy afterwards
+     */
+    private void stopMorph(){
+        if(morphAnimator != null){
+            ValueAnimator animator = morphAnimator;
+            morphAnimator = null;
+            animator.cancel();
+        }
+        morph = null;
+    }
+
+    /**
+     * Outline of the current arcs or of the current frame of a morph
+     */
+    private Path getPath(int width, int height){
+        return morph != null ? morph.getPath(width, height) : getShape().getPath(width, height);
+    }
+
+    /**
+     * Redraw on the next frame, coalescing all the edits applied until then
+     * @param previous arcs the view was last drawn with
+     */
+    private void scheduleRedraw(ArcSpec previous){
+        if(scheduledSpec != null) return;
+        scheduledSpec = previous;
+        if(redrawCallback == null){
+            redrawCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    ArcSpec previous = scheduledSpec;
+                    scheduledSpec = null;
+                    //Edits may have changed the arcs back within the frame
+                    if(!getSpec().equals(previous)){
+                        redraw();
+                    }
+                }
+            };
+        }
+        Choreographer.getInstance().postFrameCallback(redrawCallback);
+    }
+
+    private void setSpec(ArcSpec spec){
+        for(int corner = 0; corner < 4; corner++){
+            arcs[corner] = spec.getArc(corner);
+            outerAxes[corner] = spec.getOuterAxis(corner);
+            radii[corner] = spec.getRadius(corner);
+        }
+        this.spec = spec;
+    }
+
+    /**
+     * Shape of the current arcs, recreated only when the arcs change
+     */
+    private ArcShape getShape(){
+        ArcSpec spec = getSpec();
+        if(shape == null || !shape.getSpec().equals(spec)){
+            shape = new ArcShape(spec);
+        }
+        return shape;
+    }
+
+    /**
+     * Get the offscreen canvas backed by a pooled bitmap of the given size
+     * The bitmap is kept until the size changes because the canvas
+     * we draw into may still reference it after draw returns
+     */
+    private Canvas obtainOffscreen(int width, int height){
+        if(offscreenBitmap != null && (offscreenBitmap.getWidth() != width || offscreenBitmap.getHeight() != height)){
+            releaseOffscreen();
+        }
+        if(offscreenBitmap == null){
+            offscreenBitmap = ArcBitmapPool.acquire(width, height, Bitmap.Config.ARGB_8888);
+            offscreenCanvas.setBitmap(offscreenBitmap);
+        }else{
+            offscreenBitmap.eraseColor(Color.TRANSPARENT);
+        }
+        return offscreenCanvas;
+    }
+
+    /**
+     * Get the canvas of a corner backed by a pooled bitmap of the given size
+     * Like the offscreen buffer the bitmaps are kept between draws
+     */
+    private Canvas obtainCorner(int corner, int width, int height){
+        Bitmap bitmap = cornerBitmaps[corner];
+        if(bitmap != null && (bitmap.getWidth() != width || bitmap.getHeight() != height)){
+            ArcBitmapPool.release(bitmap);
+            bitmap = null;
+        }
+        if(bitmap == null){
+            bitmap = ArcBitmapPool.acquire(width, height, Bitmap.Config.ARGB_8888);
+            cornerBitmaps[corner] = bitmap;
+        }else{
+            bitmap.eraseColor(Color.TRANSPARENT);
+        }
+        cornerCanvas.setBitmap(bitmap);
+        return cornerCanvas;
+    }
+
+    private void releaseCorners(){
+        cornerCanvas.setBitmap(null);
+        for(int i = 0; i < cornerBitmaps.length; i++){
+            if(cornerBitmaps[i] == null) continue;
+            ArcBitmapPool.release(cornerBitmaps[i]);
+            cornerBitmaps[i] = null;
+        }
+    }
+
+    private void releaseOffscreen(){
+        if(offscreenBitmap == null) return;
+        offscreenCanvas.setBitmap(null);
+        ArcBitmapPool.release(offscreenBitmap);
+        offscreenBitmap = null;
+    }
+
+}
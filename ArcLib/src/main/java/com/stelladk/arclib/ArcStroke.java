@@ -0,0 +1,188 @@
+package com.stelladk.arclib;
+
+import android.graphics.Canvas;
+import android.graphics.DashPathEffect;
+import android.graphics.LinearGradient;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PathMeasure;
+import android.graphics.Region;
+import android.graphics.Shader;
+import android.os.Build;
+
+/**
+ * Stroke along the outline of an arc shape.
+ * The dash effect, the gradient and the outline of aligned strokes are built
+ * once for a shape path and size, and only rebuilt when one of them or the
+ * stroke options change, so drawing the stroke does not allocate.
+ *
+ * @see ArcRenderer
+ */
+final class ArcStroke {
+    private final static String TAG = "ArcStroke";
+
+    private final Paint paint;
+    private final Path outline;
+
+    private int color;
+    private float width;
+    private int alignment = ArcShape.STROKE_CENTER;
+    private float dashLength, dashGap;
+    private boolean gradient;
+    private int startColor, endColor;
+    private float gradientAngle;
+    private Shader shader;
+
+    private Path source;
+    private int sourceWidth = -1, sourceHeight = -1;
+    private boolean dirty = true;
+    private boolean hasOutline;
+
+    ArcStroke(){
+        paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        color = paint.getColor();
+        outline = new Path();
+    }
+
+    void setColor(int color){
+        if(this.color == color) return;
+        this.color = color;
+        paint.setColor(color);
+    }
+
+    void setWidth(float width){
+        if(this.width == width) return;
+        this.width = width;
+        dirty = true;
+    }
+
+    void setAlignment(int alignment){
+        if(this.alignment == alignment) return;
+        this.alignment = alignment;
+        dirty = true;
+    }
+
+    void setDash(float dashLength, float dashGap){
+        if(this.dashLength == dashLength && this.dashGap == dashGap) return;
+        this.dashLength = dashLength;
+        this.dashGap = dashGap;
+        dirty = true;
+    }
+
+    void setGradient(int startColor, int endColor, float angle){
+        if(gradient && this.startColor == startColor && this.endColor == endColor && gradientAngle == angle) return;
+        gradient = true;
+        this.startColor = startColor;
+        this.endColor = endColor;
+        this.gradientAngle = angle;
+        shader = null;
+        dirty = true;
+    }
+
+    void clearGradient(){
+        if(!gradient) return;
+        gradient = false;
+        shader = null;
+        dirty = true;
+    }
+
+    /**
+     * Stroke the outline of a shape
+     * @param canvas to draw the stroke into
+     * @param path outline of the shape
+     * @param width width of the shape
+     * @param height height of the shape
+     * @param cacheable false if the path changes on every frame, like the frames of a morph
+     */
+    void draw(Canvas canvas, Path path, int width, int height, boolean cacheable){
+        if(!cacheable || dirty || path != source || width != sourceWidth || height != sourceHeight){
+            update(path, width, height, cacheable);
+        }
+
+        if(hasOutline){
+            canvas.drawPath(outline, paint);
+        }else if(alignment != ArcShape.STROKE_CENTER && ArcRenderStrategy.canClipPath(canvas)){
+            //Half of a stroke twice as wide lies on the requested side of the outline
+            int saveCount = canvas.save();
+            clip(canvas, path, alignment == ArcShape.STROKE_INSIDE);
+            canvas.drawPath(path, paint);
+            canvas.restoreToCount(saveCount);
+        }else{
+            canvas.drawPath(path, paint);
+        }
+    }
+
+    /**
+     * Clip the canvas to the inside or the outside of the path
+     * Region.Op.DIFFERENCE is deprecated from API 26, where clipOutPath replaces it
+     */
+    @SuppressWarnings("deprecation")
+    private static void clip(Canvas canvas, Path path, boolean inside){
+        if(inside){
+            canvas.clipPath(path);
+        }else if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.O){
+            canvas.clipOutPath(path);
+        }else{
+            canvas.clipPath(path, Region.Op.DIFFERENCE);
+        }
+    }
+
+    private void update(Path path, int width, int height, boolean cacheable){
+        boolean centered = alignment == ArcShape.STROKE_CENTER;
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeWidth(centered ? this.width : this.width * 2);
+        paint.setPathEffect(dashLength > 0 ? createDash(path) : null);
+        if(gradient && (shader == null || width != sourceWidth || height != sourceHeight)){
+            shader = createGradient(width, height);
+        }
+        paint.setShader(shader);
+
+        //Aligned strokes are turned into a filled outline once instead of being clipped on every frame
+        hasOutline = false;
+        if(cacheable && !centered && Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT){
+            paint.getFillPath(path, outline);
+            hasOutline = outline.op(path, alignment == ArcShape.STROKE_INSIDE ? Path.Op.INTERSECT : Path.Op.DIFFERENCE);
+            if(hasOutline) paint.setStyle(Paint.Style.FILL);
+        }
+
+        source = path;
+        sourceWidth = width;
+        sourceHeight = height;
+        dirty = false;
+    }
+
+    /**
+     * Dashes stretched to fit a whole number of times around the outline,
+     * so the dash pattern does not break where the outline closes
+     */
+    private DashPathEffect createDash(Path path){
+        float length = 0;
+        PathMeasure measure = new PathMeasure(path, true);
+        do{
+            length += measure.getLength();
+        }while(measure.nextContour());
+
+        float interval = dashLength + dashGap;
+        float scale = 1;
+        if(length > 0 && interval > 0){
+            int count = Math.max(1, Math.round(length / interval));
+            scale = length / (count * interval);
+        }
+        return new DashPathEffect(new float[]{dashLength * scale, dashGap * scale}, 0);
+    }
+
+    /**
+     * Linear gradient through the center of the shape that spans it at the given angle,
+     * 0 degrees going from left to right and 90 from top to bottom
+     */
+    private LinearGradient createGradient(int width, int height){
+        double radians = Math.toRadians(gradientAngle);
+        float cos = (float) Math.cos(radians);
+        float sin = (float) Math.sin(radians);
+        float radius = (Math.abs(cos) * width + Math.abs(sin) * height) / 2;
+        float centerX = width / 2f, centerY = height / 2f;
+        return new LinearGradient(centerX - cos * radius, centerY - sin * radius,
+                centerX + cos * radius, centerY + sin * radius,
+                startColor, endColor, Shader.TileMode.CLAMP);
+    }
+}
@@ -0,0 +1,93 @@
+package com.stelladk.arclib.benchmark;
+
+import com.stelladk.arclib.core.ArcGeometry;
+import com.stelladk.arclib.core.ArcSpec;
+import com.stelladk.arclib.core.SegmentBuffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of resolving and emitting the arc geometry.
+ * Every invocation goes through all 81 corner type combinations,
+ * so the reported time is per shape.
+ */
+@State(Scope.Thread)
+public class ArcGeometryBenchmark {
+    static final int COMBINATIONS = 81;
+
+    /**
+     * View size in pixels, from a 48dp button to a full screen layout at xxhdpi
+     */
+    @Param({"144x144", "900x300", "1080x2340"})
+    public String size;
+
+    @Param({"X_AXIS", "Y_AXIS"})
+    public String outerAxis;
+
+    /**
+     * Default (-1) radii or explicit radii of a quarter of the shortest side
+     */
+    @Param({"default", "explicit"})
+    public String radius;
+
+    int width, height;
+    ArcSpec[] specs;
+
+    private final ArcGeometry geometry = new ArcGeometry();
+    private final SegmentBuffer segments = new SegmentBuffer();
+
+    @Setup
+    public void setUp(){
+        int separator = size.indexOf('x');
+        width = Integer.parseInt(size.substring(0, separator));
+        height = Integer.parseInt(size.substring(separator + 1));
+        specs = createSpecs("Y_AXIS".equals(outerAxis) ? ArcSpec.Y_AXIS : ArcSpec.X_AXIS,
+                "explicit".equals(radius) ? Math.min(width, height) / 4f : -1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMBINATIONS)
+    public void resolve(Blackhole blackhole){
+        for(ArcSpec spec : specs){
+            geometry.set(spec, width, height);
+            blackhole.consume(geometry.getLeft());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMBINATIONS)
+    public void emit(Blackhole blackhole){
+        for(ArcSpec spec : specs){
+            geometry.set(spec, width, height);
+            geometry.emit(segments);
+            blackhole.consume(segments.getVerbCount());
+        }
+    }
+
+    /**
+     * All the corner type combinations with the same axis and radius
+     */
+    static ArcSpec[] createSpecs(int axis, float radius){
+        int[] arcs = {ArcSpec.INNER, ArcSpec.NONE, ArcSpec.OUTER};
+        ArcSpec[] specs = new ArcSpec[COMBINATIONS];
+        int i = 0;
+        for(int topLeft : arcs){
+            for(int topRight : arcs){
+                for(int bottomLeft : arcs){
+                    for(int bottomRight : arcs){
+                        specs[i++] = new ArcSpec(topLeft, topRight, bottomLeft, bottomRight,
+                                axis, axis, axis, axis,
+                                radius, radius, radius, radius);
+                    }
+                }
+            }
+        }
+        return specs;
+    }
+}
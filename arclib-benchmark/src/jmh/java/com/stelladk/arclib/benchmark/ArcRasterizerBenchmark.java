@@ -0,0 +1,60 @@
+package com.stelladk.arclib.benchmark;
+
+import com.stelladk.arclib.core.ArcGeometry;
+import com.stelladk.arclib.core.ArcRasterizer;
+import com.stelladk.arclib.core.ArcSpec;
+import com.stelladk.arclib.core.SegmentBuffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of rasterizing a full size mask.
+ * Every invocation goes through all 81 corner type combinations,
+ * so the reported time is per mask.
+ */
+@State(Scope.Thread)
+public class ArcRasterizerBenchmark {
+
+    /**
+     * View size in pixels, from a 48dp button to a full screen layout at xxhdpi
+     */
+    @Param({"144x144", "900x300", "1080x2340"})
+    public String size;
+
+    @Param({"X_AXIS", "Y_AXIS"})
+    public String outerAxis;
+
+    int width, height;
+    ArcSpec[] specs;
+    byte[] pixels;
+
+    private final ArcGeometry geometry = new ArcGeometry();
+    private final SegmentBuffer segments = new SegmentBuffer();
+    private final ArcRasterizer rasterizer = new ArcRasterizer();
+
+    @Setup
+    public void setUp(){
+        int separator = size.indexOf('x');
+        width = Integer.parseInt(size.substring(0, separator));
+        height = Integer.parseInt(size.substring(separator + 1));
+        specs = ArcGeometryBenchmark.createSpecs("Y_AXIS".equals(outerAxis) ? ArcSpec.Y_AXIS : ArcSpec.X_AXIS, -1);
+        pixels = new byte[width * height];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ArcGeometryBenchmark.COMBINATIONS)
+    public void rasterize(Blackhole blackhole){
+        for(ArcSpec spec : specs){
+            geometry.set(spec, width, height);
+            geometry.emit(segments);
+            rasterizer.rasterize(segments, 0, 0, width, height, pixels, 0, width, true);
+            blackhole.consume(pixels);
+        }
+    }
+}
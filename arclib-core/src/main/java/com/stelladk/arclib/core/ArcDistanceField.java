@@ -0,0 +1,142 @@
+package com.stelladk.arclib.core;
+
+/**
+ * Signed distance to an arc outline sampled on a grid.
+ * Distances are positive outside the outline and negative inside it,
+ * with the even-odd rule of {@link ArcRasterizer}. Between the samples the
+ * field is interpolated bilinearly, so a field built once can be looked up
+ * at any scale to antialias the outline without rasterizing it again.
+ * Fields are immutable once built and can be shared between threads.
+ */
+public final class ArcDistanceField {
+    private final static String TAG = "ArcDistanceField";
+
+    private final float x, y;
+    private final int width, height;
+    private final float[] distances;
+
+    /**
+     * Sample the distance to the outline on a grid with a spacing of one unit
+     * Sample (column, row) of the field lies at (x + column, y + row)
+     * @param path outline to measure the distance to
+     * @param x left of the grid in outline coordinates
+     * @param y top of the grid in outline coordinates
+     * @param width number of columns of the grid
+     * @param height number of rows of the grid
+     */
+    public ArcDistanceField(SegmentBuffer path, float x, float y, int width, int height){
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.distances = new float[width * height];
+
+        EdgeList edges = new EdgeList();
+        edges.set(path);
+        for(int row = 0; row < height; row++){
+            for(int column = 0; column < width; column++){
+                distances[row * width + column] = distance(edges, x + column, y + row);
+            }
+        }
+    }
+
+    /**
+     * @return left of the grid in outline coordinates
+     */
+    public float getX(){
+        return x;
+    }
+
+    /**
+     * @return top of the grid in outline coordinates
+     */
+    public float getY(){
+        return y;
+    }
+
+    /**
+     * @return number of columns of the grid
+     */
+    public int getWidth(){
+        return width;
+    }
+
+    /**
+     * @return number of rows of the grid
+     */
+    public int getHeight(){
+        return height;
+    }
+
+    /**
+     * @param column column of the sample
+     * @param row row of the sample
+     * @return the distance stored at the sample
+     */
+    public float getDistance(int column, int row){
+        return distances[row * width + column];
+    }
+
+    /**
+     * Interpolate the distance at a point, points outside the grid use its nearest edge
+     * @param px x in outline coordinates
+     * @param py y in outline coordinates
+     * @return the signed distance to the outline
+     */
+    public float sample(float px, float py){
+        float fx = Math.max(0, Math.min(width - 1, px - x));
+        float fy = Math.max(0, Math.min(height - 1, py - y));
+        int column = (int) fx, row = (int) fy;
+        int nextColumn = Math.min(column + 1, width - 1);
+        int nextRow = Math.min(row + 1, height - 1);
+        float tx = fx - column, ty = fy - row;
+
+        float top = distances[row * width + column] * (1 - tx) + distances[row * width + nextColumn] * tx;
+        float bottom = distances[nextRow * width + column] * (1 - tx) + distances[nextRow * width + nextColumn] * tx;
+        return top * (1 - ty) + bottom * ty;
+    }
+
+    /**
+     * Distance at a point of the outline stretched by the given scales
+     * The distance is exact for uniform scales and a first order estimate
+     * from the gradient of the field otherwise, which is accurate near the outline
+     * @param px x in outline coordinates, before the stretch
+     * @param py y in outline coordinates, before the stretch
+     * @param scaleX horizontal stretch of the outline
+     * @param scaleY vertical stretch of the outline
+     * @return the signed distance to the stretched outline, in stretched units
+     */
+    public float sample(float px, float py, float scaleX, float scaleY){
+        float distance = sample(px, py);
+        float gradientX = (sample(px + 1, py) - sample(px - 1, py)) / 2 / scaleX;
+        float gradientY = (sample(px, py + 1) - sample(px, py - 1)) / 2 / scaleY;
+        float length = (float) Math.sqrt(gradientX * gradientX + gradientY * gradientY);
+        if(length == 0) return distance * Math.min(scaleX, scaleY);
+        return distance / length;
+    }
+
+    private static float distance(EdgeList edges, float px, float py){
+        float[] points = edges.getEdges();
+        int count = edges.size();
+        float nearest = Float.MAX_VALUE;
+        boolean inside = false;
+        for(int i = 0; i < count; i += 4){
+            float x0 = points[i], y0 = points[i + 1];
+            float x1 = points[i + 2], y1 = points[i + 3];
+
+            //Squared distance to the closest point of the edge
+            float dx = x1 - x0, dy = y1 - y0;
+            float t = ((px - x0) * dx + (py - y0) * dy) / (dx * dx + dy * dy);
+            t = Math.max(0, Math.min(1, t));
+            float ex = x0 + dx * t - px, ey = y0 + dy * t - py;
+            nearest = Math.min(nearest, ex * ex + ey * ey);
+
+            //Even-odd crossings of a ray going right from the point
+            if((y0 > py) != (y1 > py) && px < x0 + (py - y0) * dx / dy){
+                inside = !inside;
+            }
+        }
+        float distance = (float) Math.sqrt(nearest);
+        return inside ? -distance : distance;
+    }
+}
@@ -0,0 +1,445 @@
+package com.stelladk.arclib.core;
+
+import static com.stelladk.arclib.core.ArcSpec.BOTTOM_LEFT;
+import static com.stelladk.arclib.core.ArcSpec.BOTTOM_RIGHT;
+import static com.stelladk.arclib.core.ArcSpec.INNER;
+import static com.stelladk.arclib.core.ArcSpec.NONE;
+import static com.stelladk.arclib.core.ArcSpec.OUTER;
+import static com.stelladk.arclib.core.ArcSpec.TOP_LEFT;
+import static com.stelladk.arclib.core.ArcSpec.TOP_RIGHT;
+import static com.stelladk.arclib.core.ArcSpec.X_AXIS;
+import static com.stelladk.arclib.core.ArcSpec.Y_AXIS;
+
+/**
+ * Platform independent geometry of an arc shape.
+ * Resolves the margins and radii of an {@link ArcSpec} for a view size
+ * and emits the outline into a {@link SegmentBuffer}.
+ * Instances are reusable but not thread safe.
+ */
+public final class ArcGeometry {
+    private final static String TAG = "ArcGeometry";
+
+    private int topLeftArc, topRightArc, bottomLeftArc, bottomRightArc;
+    private int topLeftOuterAxis, topRightOuterAxis, bottomLeftOuterAxis, bottomRightOuterAxis;
+    private float topLeftRadius, topRightRadius, bottomLeftRadius, bottomRightRadius;
+
+    private int viewWidth, viewHeight;
+    private int left, top, right, bottom;
+    private int width, height;
+    private int xCenter, yCenter;
+    private float xRadius, yRadius;
+    private float topLeftRadiusX, topRightRadiusX, bottomLeftRadiusX, bottomRightRadiusX;
+    private float topLeftRadiusY, topRightRadiusY, bottomLeftRadiusY, bottomRightRadiusY;
+
+    private final float[] cornerBounds = new float[4];
+
+    /**
+     * Resolve the geometry of the arcs for a view of the given size
+     * @param spec arcs of the shape
+     * @param viewWidth width of the view
+     * @param viewHeight height of the view
+     */
+    public void set(ArcSpec spec, int viewWidth, int viewHeight){
+        topLeftArc = spec.getArc(TOP_LEFT);
+        topRightArc = spec.getArc(TOP_RIGHT);
+        bottomLeftArc = spec.getArc(BOTTOM_LEFT);
+        bottomRightArc = spec.getArc(BOTTOM_RIGHT);
+        topLeftOuterAxis = spec.getOuterAxis(TOP_LEFT);
+        topRightOuterAxis = spec.getOuterAxis(TOP_RIGHT);
+        bottomLeftOuterAxis = spec.getOuterAxis(BOTTOM_LEFT);
+        bottomRightOuterAxis = spec.getOuterAxis(BOTTOM_RIGHT);
+        topLeftRadius = spec.getRadius(TOP_LEFT);
+        topRightRadius = spec.getRadius(TOP_RIGHT);
+        bottomLeftRadius = spec.getRadius(BOTTOM_LEFT);
+        bottomRightRadius = spec.getRadius(BOTTOM_RIGHT);
+
+        factorizeSize(viewWidth, viewHeight);
+    }
+
+    /**
+     * Resolve the geometry part way through a morph between two geometries
+     * Radii are interpolated as signed values, so a corner that changes its arc type
+     * or outer axis shrinks to a square corner before it grows into the new arc
+     * @param from geometry at fraction 0
+     * @param to geometry at fraction 1
+     * @param fraction progress of the morph
+     */
+    public void lerp(ArcGeometry from, ArcGeometry to, float fraction){
+        viewWidth = to.viewWidth;
+        viewHeight = to.viewHeight;
+
+        left = Math.round(from.left + (to.left - from.left) * fraction);
+        top = Math.round(from.top + (to.top - from.top) * fraction);
+        right = Math.round(from.right + (to.right - from.right) * fraction);
+        bottom = Math.round(from.bottom + (to.bottom - from.bottom) * fraction);
+
+        width = right - left;
+        height = bottom - top;
+
+        xCenter = left+width/2;
+        yCenter = top+height/2;
+
+        xRadius = width *3/8F;
+        yRadius = height*3/8F;
+
+        for(int corner = TOP_LEFT; corner <= BOTTOM_RIGHT; corner++){
+            lerpCorner(corner, from, to, fraction);
+        }
+    }
+
+    /**
+     * Emit the outline of the shape
+     * The buffer is reset before the outline is written
+     * @param path buffer to write the segments into
+     */
+    public void emit(SegmentBuffer path){
+        path.reset();
+
+        //Begin shape at (xCenter,top)
+        path.moveTo(xCenter,top);
+
+        //Top Left Corner
+        if(topLeftArc == NONE){
+            path.lineTo(left, top);
+            path.lineTo(left, yCenter);
+        }else if(topLeftArc == INNER){
+            path.arcTo(left, top, left+topLeftRadiusX*2, top+topLeftRadiusY*2, -90, -90);
+        }else if(topLeftArc == OUTER){
+            if(topLeftOuterAxis == X_AXIS){
+                path.lineTo(left-topLeftRadiusX*2, top);
+                path.arcTo(left-topLeftRadiusX*2, top, left, top+topLeftRadiusY*2, -90, 90);
+            }else if(topLeftOuterAxis == Y_AXIS){
+                path.arcTo(left, top-topLeftRadiusY*2, left+topLeftRadiusX*2, top, 90, 90);
+                path.lineTo(left, yCenter);
+            }
+        } //end at (left, yCenter)
+
+        //Bottom Left Corner
+        if(bottomLeftArc == NONE){
+            path.lineTo(left, bottom);
+            path.lineTo(xCenter, bottom);
+        }else if(bottomLeftArc == INNER){
+            path.arcTo(left, bottom-bottomLeftRadiusY*2, left+bottomLeftRadiusX*2, bottom, 180, -90);
+        }else if(bottomLeftArc == OUTER){
+            if(bottomLeftOuterAxis == Y_AXIS){
+                path.lineTo(left, bottom+bottomLeftRadiusY*2);
+                path.arcTo(left, bottom, left+bottomLeftRadiusX*2, bottom+bottomLeftRadiusY*2, 180, 90);
+            }else if(bottomLeftOuterAxis == X_AXIS){
+                path.arcTo(left-bottomLeftRadiusX*2, bottom-bottomLeftRadiusY*2, left, bottom, 0, 90);
+                path.lineTo(xCenter, bottom);
+            }
+        }//end at (xCenter, bottom)
+
+        //Bottom Right Corner
+        if(bottomRightArc == NONE){
+            path.lineTo(right, bottom);
+            path.lineTo(right, yCenter);
+        }else if(bottomRightArc == INNER){
+            path.arcTo(right-bottomRightRadiusX*2, bottom-bottomRightRadiusY*2, right, bottom, 90, -90);
+        }else if(bottomRightArc == OUTER){
+            if(bottomRightOuterAxis == X_AXIS){
+                path.lineTo(right+bottomRightRadiusX*2, bottom);
+                path.arcTo(right, bottom-bottomRightRadiusY*2, right+bottomRightRadiusX*2, bottom, 90, 90);
+            }else if(bottomRightOuterAxis == Y_AXIS){
+                path.arcTo(right-bottomRightRadiusX*2, bottom, right, bottom+bottomRightRadiusY*2, -90, 90);
+                path.lineTo(right, yCenter);
+            }
+        }//end at (right, yCenter)
+
+        //Top Right Corner
+        if(topRightArc == NONE){
+            path.lineTo(right, top);
+            path.lineTo(xCenter, top);
+        }else if(topRightArc == INNER){
+            path.arcTo(right-topRightRadiusX*2, top, right, top+topRightRadiusY*2, 0, -90);
+        }else if(topRightArc == OUTER){
+            if(topRightOuterAxis == Y_AXIS){
+                path.lineTo(right, top-topRightRadiusY*2);
+                path.arcTo(right-topRightRadiusX*2, top-topRightRadiusY*2, right, top, 0, 90);
+            }else if(topRightOuterAxis == X_AXIS){
+                path.arcTo(right, top, right+topRightRadiusX*2, top+topRightRadiusY*2, 180, 90);
+                path.lineTo(xCenter, top);
+            }
+        }//end at (xCenter, top)
+
+        path.close();
+    }
+
+    /**
+     * @return width of the view the geometry was resolved for
+     */
+    public int getViewWidth(){
+        return viewWidth;
+    }
+
+    /**
+     * @return height of the view the geometry was resolved for
+     */
+    public int getViewHeight(){
+        return viewHeight;
+    }
+
+    /**
+     * @return left edge of the shape body, inside the outer arc margins
+     */
+    public int getLeft(){
+        return left;
+    }
+
+    /**
+     * @return top edge of the shape body, inside the outer arc margins
+     */
+    public int getTop(){
+        return top;
+    }
+
+    /**
+     * @return right edge of the shape body, inside the outer arc margins
+     */
+    public int getRight(){
+        return right;
+    }
+
+    /**
+     * @return bottom edge of the shape body, inside the outer arc margins
+     */
+    public int getBottom(){
+        return bottom;
+    }
+
+    /**
+     * @param corner one of the {@link ArcSpec} corners
+     * @return the arc type of the corner
+     */
+    public int getArc(int corner){
+        switch(corner){
+            case TOP_LEFT: return topLeftArc;
+            case TOP_RIGHT: return topRightArc;
+            case BOTTOM_LEFT: return bottomLeftArc;
+            default: return bottomRightArc;
+        }
+    }
+
+    /**
+     * @param corner one of the {@link ArcSpec} corners
+     * @return the outer arc axis of the corner
+     */
+    public int getOuterAxis(int corner){
+        switch(corner){
+            case TOP_LEFT: return topLeftOuterAxis;
+            case TOP_RIGHT: return topRightOuterAxis;
+            case BOTTOM_LEFT: return bottomLeftOuterAxis;
+            default: return bottomRightOuterAxis;
+        }
+    }
+
+    /**
+     * @param corner one of the {@link ArcSpec} corners
+     * @return the resolved horizontal radius of the corner
+     */
+    public float getRadiusX(int corner){
+        switch(corner){
+            case TOP_LEFT: return topLeftRadiusX;
+            case TOP_RIGHT: return topRightRadiusX;
+            case BOTTOM_LEFT: return bottomLeftRadiusX;
+            default: return bottomRightRadiusX;
+        }
+    }
+
+    /**
+     * @param corner one of the {@link ArcSpec} corners
+     * @return the resolved vertical radius of the corner
+     */
+    public float getRadiusY(int corner){
+        switch(corner){
+            case TOP_LEFT: return topLeftRadiusY;
+            case TOP_RIGHT: return topRightRadiusY;
+            case BOTTOM_LEFT: return bottomLeftRadiusY;
+            default: return bottomRightRadiusY;
+        }
+    }
+
+    /**
+     * Bounds of the curve of a corner
+     * Inner arcs lie inside the body and outer arcs in the margin next to it,
+     * everything outside these bounds is either fully covered or fully clear
+     * @param corner one of the {@link ArcSpec} corners
+     * @param bounds array receiving left, top, right and bottom
+     * @return false if the corner has no arc
+     */
+    public boolean getCornerBounds(int corner, float[] bounds){
+        int arc = getArc(corner);
+        if(arc == NONE) return false;
+
+        float radiusX = getRadiusX(corner);
+        float radiusY = getRadiusY(corner);
+        boolean outerX = arc == OUTER && getOuterAxis(corner) == X_AXIS;
+        boolean outerY = arc == OUTER && getOuterAxis(corner) == Y_AXIS;
+
+        if(corner == TOP_LEFT || corner == BOTTOM_LEFT){
+            bounds[0] = outerX ? left - radiusX : left;
+            bounds[2] = outerX ? left : left + radiusX;
+        }else{
+            bounds[0] = outerX ? right : right - radiusX;
+            bounds[2] = outerX ? right + radiusX : right;
+        }
+        if(corner == TOP_LEFT || corner == TOP_RIGHT){
+            bounds[1] = outerY ? top - radiusY : top;
+            bounds[3] = outerY ? top : top + radiusY;
+        }else{
+            bounds[1] = outerY ? bottom : bottom - radiusY;
+            bounds[3] = outerY ? bottom + radiusY : bottom;
+        }
+        return true;
+    }
+
+    /**
+     * Check if a point lies inside the shape, without building its outline
+     * Inside the bounds of a corner the point is tested against the ellipse of
+     * its arc, everywhere else against the body, so the test takes a few float operations.
+     * Where the bounds of two corners overlap the first corner decides.
+     * @param x x in view coordinates
+     * @param y y in view coordinates
+     * @return true if the point is inside the shape
+     */
+    public boolean contains(float x, float y){
+        for(int corner = TOP_LEFT; corner <= BOTTOM_RIGHT; corner++){
+            if(!getCornerBounds(corner, cornerBounds)) continue;
+            if(x < cornerBounds[0] || x >= cornerBounds[2] || y < cornerBounds[1] || y >= cornerBounds[3]) continue;
+
+            //The ellipse is centered on the corner of the bounds its arc curves around
+            int arc = getArc(corner);
+            boolean outerX = arc == OUTER && getOuterAxis(corner) == X_AXIS;
+            boolean outerY = arc == OUTER && getOuterAxis(corner) == Y_AXIS;
+            boolean leftCorner = corner == TOP_LEFT || corner == BOTTOM_LEFT;
+            boolean topCorner = corner == TOP_LEFT || corner == TOP_RIGHT;
+            float centerX = leftCorner != outerX ? cornerBounds[2] : cornerBounds[0];
+            float centerY = topCorner != outerY ? cornerBounds[3] : cornerBounds[1];
+            float dx = (x - centerX) / getRadiusX(corner);
+            float dy = (y - centerY) / getRadiusY(corner);
+
+            //Inner arcs keep the inside of their ellipse and outer arcs the outside
+            boolean outside = dx * dx + dy * dy > 1;
+            return outside == (arc == OUTER);
+        }
+        return x >= left && x < right && y >= top && y < bottom;
+    }
+
+    private void lerpCorner(int corner, ArcGeometry from, ArcGeometry to, float fraction){
+        int fromArc = from.getArc(corner);
+        int toArc = to.getArc(corner);
+        int fromAxis = from.getOuterAxis(corner);
+        int toAxis = to.getOuterAxis(corner);
+        float fromRadiusX = fromArc == NONE ? 0 : from.getRadiusX(corner);
+        float fromRadiusY = fromArc == NONE ? 0 : from.getRadiusY(corner);
+        float toRadiusX = toArc == NONE ? 0 : to.getRadiusX(corner);
+        float toRadiusY = toArc == NONE ? 0 : to.getRadiusY(corner);
+
+        int arc, axis;
+        float radiusX, radiusY;
+        if(fromArc != NONE && toArc != NONE && (fromArc != toArc || (fromArc == OUTER && fromAxis != toAxis))){
+            //Pass through a square corner halfway
+            if(fraction < 0.5f){
+                float scale = 1 - fraction * 2;
+                arc = fromArc;
+                axis = fromAxis;
+                radiusX = fromRadiusX * scale;
+                radiusY = fromRadiusY * scale;
+            }else{
+                float scale = fraction * 2 - 1;
+                arc = toArc;
+                axis = toAxis;
+                radiusX = toRadiusX * scale;
+                radiusY = toRadiusY * scale;
+            }
+        }else{
+            arc = fromArc != NONE ? fromArc : toArc;
+            axis = fromArc != NONE ? fromAxis : toAxis;
+            radiusX = fromRadiusX + (toRadiusX - fromRadiusX) * fraction;
+            radiusY = fromRadiusY + (toRadiusY - fromRadiusY) * fraction;
+        }
+        if(radiusX <= 0 || radiusY <= 0) arc = NONE;
+
+        switch(corner){
+            case TOP_LEFT:
+                topLeftArc = arc;
+                topLeftOuterAxis = axis;
+                topLeftRadiusX = radiusX;
+                topLeftRadiusY = radiusY;
+                break;
+            case TOP_RIGHT:
+                topRightArc = arc;
+                topRightOuterAxis = axis;
+                topRightRadiusX = radiusX;
+                topRightRadiusY = radiusY;
+                break;
+            case BOTTOM_LEFT:
+                bottomLeftArc = arc;
+                bottomLeftOuterAxis = axis;
+                bottomLeftRadiusX = radiusX;
+                bottomLeftRadiusY = radiusY;
+                break;
+            default:
+                bottomRightArc = arc;
+                bottomRightOuterAxis = axis;
+                bottomRightRadiusX = radiusX;
+                bottomRightRadiusY = radiusY;
+                break;
+        }
+    }
+
+    private void factorizeSize(int viewWidth, int viewHeight){
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+
+        left = calcMargin(viewWidth, X_AXIS, topLeftArc, topLeftOuterAxis, topLeftRadius, bottomLeftArc, bottomLeftOuterAxis, bottomLeftRadius);
+        top = calcMargin(viewHeight, Y_AXIS, topLeftArc, topLeftOuterAxis, topLeftRadius, topRightArc, topRightOuterAxis, topRightRadius);
+        bottom = viewHeight - calcMargin(viewHeight, Y_AXIS, bottomLeftArc, bottomLeftOuterAxis, bottomLeftRadius, bottomRightArc, bottomRightOuterAxis, bottomRightRadius);
+        right = viewWidth - calcMargin(viewWidth, X_AXIS, topRightArc, topRightOuterAxis, topRightRadius, bottomRightArc, bottomRightOuterAxis, bottomRightRadius);
+
+        width = right - left;
+        height = bottom - top;
+
+        xCenter = left+width/2;
+        yCenter = top+height/2;
+
+        xRadius = width *3/8F;
+        yRadius = height*3/8F;
+
+        topLeftRadiusX=topLeftRadiusY = topLeftRadius;
+        topRightRadiusX=topRightRadiusY = topRightRadius;
+        bottomLeftRadiusX=bottomLeftRadiusY = bottomLeftRadius;
+        bottomRightRadiusX=bottomRightRadiusY = bottomRightRadius;
+
+        if(topLeftRadius == -1) {
+            topLeftRadiusX = xRadius;
+            topLeftRadiusY = yRadius;
+        }
+        if(topRightRadius == -1) {
+            topRightRadiusX = xRadius;
+            topRightRadiusY = yRadius;
+        }
+        if(bottomLeftRadius == -1){
+            bottomLeftRadiusX = xRadius;
+            bottomLeftRadiusY = yRadius;
+        }
+        if(bottomRightRadius == -1) {
+            bottomRightRadiusX = xRadius;
+            bottomRightRadiusY = yRadius;
+        }
+    }
+
+    //TODO CHECK DEFAULT RADIUS
+    private static int calcMargin(int dim, int axis, int arc1, int arcAxis1, float arcRadius1, int arc2, int arcAxis2, float arcRadius2){
+        int margin = 0;
+        if((arc1 == OUTER && arcAxis1 == axis) && (arc2 == OUTER && arcAxis2 == axis)){
+            int maximum = (int)Math.max(arcRadius1, arcRadius2);
+            margin = maximum == -1? dim/4 : maximum;
+        }else if(arc1 == OUTER && arcAxis1 == axis){
+            margin = arcRadius1 == -1? dim/4 : (int)arcRadius1;
+        }else if(arc2 == OUTER && arcAxis2 == axis){
+            margin = arcRadius2 == -1? dim/4 : (int)arcRadius2;
+        }
+        return margin;
+    }
+}
@@ -0,0 +1,121 @@
+package com.stelladk.arclib.core;
+
+import java.util.Arrays;
+
+/**
+ * Anti-aliased scanline rasterizer for arc outlines.
+ * Fills a {@link SegmentBuffer} with the even-odd rule into an 8 bit alpha
+ * buffer using 4x4 supersampling, without any platform graphics classes,
+ * so masks can be built on any thread and on a plain JVM.
+ * Instances reuse their scratch memory and are not thread safe.
+ */
+public final class ArcRasterizer {
+    private final static String TAG = "ArcRasterizer";
+
+    private final static int SAMPLES = 4;
+    private final static int MAX_COVERAGE = SAMPLES * SAMPLES;
+
+    private final EdgeList edgeList = new EdgeList();
+    private float[] crossings = new float[16];
+    private int[] cover = new int[0];
+    private int[] delta = new int[0];
+
+    /**
+     * Fill the outline into a window of an alpha buffer
+     * Pixel (column, row) of the window covers the outline area starting at (x + column, y + row)
+     * @param path outline to fill
+     * @param x left of the window in outline coordinates
+     * @param y top of the window in outline coordinates
+     * @param width width of the window
+     * @param height height of the window
+     * @param out alpha buffer to write into
+     * @param offset index of the first pixel of the window in the buffer
+     * @param stride number of bytes between two rows of the buffer
+     * @param inverse if true fill everything outside the outline instead
+     */
+    public void rasterize(SegmentBuffer path, int x, int y, int width, int height,
+                          byte[] out, int offset, int stride, boolean inverse){
+        edgeList.set(path);
+        if(cover.length < width + 1){
+            cover = new int[width + 1];
+            delta = new int[width + 1];
+        }
+
+        int subWidth = width * SAMPLES;
+        for(int row = 0; row < height; row++){
+            Arrays.fill(cover, 0, width + 1, 0);
+            Arrays.fill(delta, 0, width + 1, 0);
+
+            float rowTop = y + row;
+            for(int sample = 0; sample < SAMPLES; sample++){
+                float scanY = rowTop + (sample + 0.5f) / SAMPLES;
+                int count = findCrossings(scanY);
+
+                //Even-odd spans between pairs of crossings
+                for(int i = 0; i + 1 < count; i += 2){
+                    int start = (int) Math.ceil((crossings[i] - x) * SAMPLES - 0.5f);
+                    int end = (int) Math.ceil((crossings[i + 1] - x) * SAMPLES - 0.5f);
+                    if(start < 0) start = 0;
+                    if(end > subWidth) end = subWidth;
+                    if(start >= end) continue;
+                    accumulate(start, end);
+                }
+            }
+
+            int index = offset + row * stride;
+            int running = 0;
+            for(int column = 0; column < width; column++){
+                running += delta[column];
+                int coverage = running + cover[column];
+                int alpha = (coverage * 255 + MAX_COVERAGE / 2) / MAX_COVERAGE;
+                out[index + column] = (byte) (inverse ? 255 - alpha : alpha);
+            }
+        }
+    }
+
+    /**
+     * Add the covered sub-columns [start, end) of one sub-scanline
+     * Whole pixels go through the delta array and are summed once per row
+     */
+    private void accumulate(int start, int end){
+        int first = start / SAMPLES;
+        int last = (end - 1) / SAMPLES;
+        if(first == last){
+            cover[first] += end - start;
+            return;
+        }
+        cover[first] += SAMPLES - (start - first * SAMPLES);
+        cover[last] += end - last * SAMPLES;
+        if(last > first + 1){
+            delta[first + 1] += SAMPLES;
+            delta[last] -= SAMPLES;
+        }
+    }
+
+    private int findCrossings(float scanY){
+        int count = 0;
+        float[] edges = edgeList.getEdges();
+        int edgeCount = edgeList.size();
+        //Horizontal edges never cross a scanline
+        for(int i = 0; i < edgeCount; i += 4){
+            float y0 = edges[i + 1];
+            float y1 = edges[i + 3];
+            if((y0 <= scanY && scanY < y1) || (y1 <= scanY && scanY < y0)){
+                float x0 = edges[i];
+                float x1 = edges[i + 2];
+                float crossing = x0 + (scanY - y0) * (x1 - x0) / (y1 - y0);
+                if(count == crossings.length){
+                    crossings = Arrays.copyOf(crossings, count * 2);
+                }
+                //Insertion sort, there are only a few crossings per scanline
+                int j = count++;
+                while(j > 0 && crossings[j - 1] > crossing){
+                    crossings[j] = crossings[j - 1];
+                    j--;
+                }
+                crossings[j] = crossing;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,142 @@
+package com.stelladk.arclib.core;
+
+import java.util.Arrays;
+
+/**
+ * Immutable description of the four arc corners of a shape.
+ * Corner types and outer axes are packed in a single int so that
+ * specs are cheap to compare and hash.
+ *
+ * @see ArcGeometry
+ */
+public final class ArcSpec {
+    private final static String TAG = "ArcSpec";
+
+    /**
+     * Static variable for outer arcs
+     */
+    public final static int OUTER = 1;
+    /**
+     * Static variable for no arcs
+     */
+    public final static int NONE = 0;
+    /**
+     * Static variable for inner arcs
+     */
+    public final static int INNER = -1;
+
+    /**
+     * Static variable for x axis
+     */
+    public final static int X_AXIS = 0;
+    /**
+     * Static variable for y axis
+     */
+    public final static int Y_AXIS = 1;
+
+    /**
+     * Static variable for the top left corner
+     */
+    public final static int TOP_LEFT = 0;
+    /**
+     * Static variable for the top right corner
+     */
+    public final static int TOP_RIGHT = 1;
+    /**
+     * Static variable for the bottom left corner
+     */
+    public final static int BOTTOM_LEFT = 2;
+    /**
+     * Static variable for the bottom right corner
+     */
+    public final static int BOTTOM_RIGHT = 3;
+
+    private final static int CORNER_BITS = 3;
+    private final static int ARC_MASK = 0x3;
+    private final static int AXIS_BIT = 0x4;
+
+    private final int corners;
+    private final float[] radii;
+    private final int hash;
+
+    public ArcSpec(int topLeftArc, int topRightArc, int bottomLeftArc, int bottomRightArc) {
+        this(topLeftArc, topRightArc, bottomLeftArc, bottomRightArc,
+                X_AXIS, Y_AXIS, Y_AXIS, X_AXIS);
+    }
+
+    public ArcSpec(int topLeftArc, int topRightArc, int bottomLeftArc, int bottomRightArc, int topLeftOuterAxis, int topRightOuterAxis, int bottomLeftOuterAxis, int bottomRightOuterAxis) {
+        this(topLeftArc, topRightArc, bottomLeftArc, bottomRightArc,
+                topLeftOuterAxis, topRightOuterAxis, bottomLeftOuterAxis, bottomRightOuterAxis,
+                -1, -1, -1, -1);
+    }
+
+    public ArcSpec(int topLeftArc, int topRightArc, int bottomLeftArc, int bottomRightArc, int topLeftOuterAxis, int topRightOuterAxis, int bottomLeftOuterAxis, int bottomRightOuterAxis, float topLeftRadius, float topRightRadius, float bottomLeftRadius, float bottomRightRadius) {
+        this.corners = pack(TOP_LEFT, topLeftArc, topLeftOuterAxis)
+                | pack(TOP_RIGHT, topRightArc, topRightOuterAxis)
+                | pack(BOTTOM_LEFT, bottomLeftArc, bottomLeftOuterAxis)
+                | pack(BOTTOM_RIGHT, bottomRightArc, bottomRightOuterAxis);
+        this.radii = new float[]{topLeftRadius, topRightRadius, bottomLeftRadius, bottomRightRadius};
+        this.hash = 31 * corners + Arrays.hashCode(radii);
+    }
+
+    /**
+     * @param corner one of {@link #TOP_LEFT}, {@link #TOP_RIGHT}, {@link #BOTTOM_LEFT} or {@link #BOTTOM_RIGHT}
+     * @return the arc type of the corner
+     */
+    public int getArc(int corner){
+        return ((corners >> (corner * CORNER_BITS)) & ARC_MASK) + INNER;
+    }
+
+    /**
+     * @param corner one of {@link #TOP_LEFT}, {@link #TOP_RIGHT}, {@link #BOTTOM_LEFT} or {@link #BOTTOM_RIGHT}
+     * @return the outer arc axis of the corner
+     */
+    public int getOuterAxis(int corner){
+        return ((corners >> (corner * CORNER_BITS)) & AXIS_BIT) != 0 ? Y_AXIS : X_AXIS;
+    }
+
+    /**
+     * @param corner one of {@link #TOP_LEFT}, {@link #TOP_RIGHT}, {@link #BOTTOM_LEFT} or {@link #BOTTOM_RIGHT}
+     * @return the radius of the corner or -1 for the default radius
+     */
+    public float getRadius(int corner){
+        return radii[corner];
+    }
+
+    /**
+     * @param arc arc type to look for
+     * @return true if any corner has the given arc type
+     */
+    public boolean hasArc(int arc){
+        return getArc(TOP_LEFT) == arc || getArc(TOP_RIGHT) == arc
+                || getArc(BOTTOM_LEFT) == arc || getArc(BOTTOM_RIGHT) == arc;
+    }
+
+    /**
+     * @param arc arc type to look for
+     * @return true if all the corners have the given arc type
+     */
+    public boolean allArcs(int arc){
+        return getArc(TOP_LEFT) == arc && getArc(TOP_RIGHT) == arc
+                && getArc(BOTTOM_LEFT) == arc && getArc(BOTTOM_RIGHT) == arc;
+    }
+
+    private static int pack(int corner, int arc, int axis){
+        int bits = (arc - INNER) & ARC_MASK;
+        if(axis == Y_AXIS) bits |= AXIS_BIT;
+        return bits << (corner * CORNER_BITS);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(!(o instanceof ArcSpec)) return false;
+        ArcSpec spec = (ArcSpec) o;
+        return corners == spec.corners && Arrays.equals(radii, spec.radii);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
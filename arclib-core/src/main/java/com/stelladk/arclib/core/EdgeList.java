@@ -0,0 +1,133 @@
+package com.stelladk.arclib.core;
+
+import java.util.Arrays;
+
+/**
+ * Straight edges of a flattened {@link SegmentBuffer}.
+ * Every contour is closed and arcs are split into segments that stay
+ * within {@link #TOLERANCE} of the curve. Edges are stored as x0, y0, x1, y1.
+ * Instances reuse their storage and are not thread safe.
+ *
+ * @see ArcRasterizer
+ * @see ArcDistanceField
+ */
+final class EdgeList {
+    private final static String TAG = "EdgeList";
+
+    /**
+     * Maximum distance in pixels between an arc and its flattened segments
+     */
+    final static float TOLERANCE = 0.1f;
+
+    private float[] edges = new float[64];
+    private int count;
+
+    private float startX, startY, lastX, lastY;
+
+    /**
+     * Replace the edges with the flattened outline
+     * @param path outline to flatten
+     */
+    void set(SegmentBuffer path){
+        count = 0;
+        boolean open = false;
+        float[] points = path.getPoints();
+        int p = 0;
+        for(int i = 0; i < path.getVerbCount(); i++){
+            int verb = path.getVerb(i);
+            switch(verb){
+                case SegmentBuffer.MOVE:
+                    if(open) addEdge(lastX, lastY, startX, startY);
+                    startX = lastX = points[p];
+                    startY = lastY = points[p + 1];
+                    open = true;
+                    break;
+                case SegmentBuffer.LINE:
+                    lineTo(points[p], points[p + 1]);
+                    break;
+                case SegmentBuffer.ARC:
+                    arcTo(points[p], points[p + 1], points[p + 2], points[p + 3], points[p + 4], points[p + 5]);
+                    break;
+                case SegmentBuffer.CLOSE:
+                    if(open) addEdge(lastX, lastY, startX, startY);
+                    lastX = startX;
+                    lastY = startY;
+                    open = false;
+                    break;
+            }
+            p += SegmentBuffer.getPointCount(verb);
+        }
+        if(open) addEdge(lastX, lastY, startX, startY);
+    }
+
+    /**
+     * @return the coordinates of the edges, only the first {@link #size()} values are valid
+     */
+    float[] getEdges(){
+        return edges;
+    }
+
+    /**
+     * @return the number of coordinates, four per edge
+     */
+    int size(){
+        return count;
+    }
+
+    private void arcTo(float left, float top, float right, float bottom, float startAngle, float sweepAngle){
+        float centerX = (left + right) / 2;
+        float centerY = (top + bottom) / 2;
+        float radiusX = (right - left) / 2;
+        float radiusY = (bottom - top) / 2;
+        double start = Math.toRadians(startAngle);
+        double sweep = Math.toRadians(sweepAngle);
+
+        float radius = Math.max(Math.abs(radiusX), Math.abs(radiusY));
+        int steps = 1;
+        if(radius > TOLERANCE){
+            double step = 2 * Math.acos(1 - TOLERANCE / radius);
+            steps = Math.max(1, (int) Math.ceil(Math.abs(sweep) / step));
+        }
+
+        //The arc starts with a line from the current point like Path.arcTo
+        lineTo(centerX + radiusX * (float) Math.cos(start), centerY + radiusY * (float) Math.sin(start));
+        for(int i = 1; i <= steps; i++){
+            double angle = start + sweep * i / steps;
+            lineTo(centerX + radiusX * (float) Math.cos(angle), centerY + radiusY * (float) Math.sin(angle));
+        }
+    }
+
+    private void lineTo(float x, float y){
+        //A line doubling back over the previous edge encloses no area, only a hairline spike,
+        //so the previous edge is shortened instead
+        if(count >= 4 && edges[count - 2] == lastX && edges[count - 1] == lastY){
+            float x0 = edges[count - 4], y0 = edges[count - 3];
+            float dx0 = lastX - x0, dy0 = lastY - y0;
+            float dx1 = x - lastX, dy1 = y - lastY;
+            float cross = dx0 * dy1 - dy0 * dx1;
+            float dot = dx0 * dx1 + dy0 * dy1;
+            if(dot < 0 && cross * cross <= 1e-6f * (dx0 * dx0 + dy0 * dy0) * (dx1 * dx1 + dy1 * dy1)){
+                count -= 4;
+                addEdge(x0, y0, x, y);
+                lastX = x;
+                lastY = y;
+                return;
+            }
+        }
+        addEdge(lastX, lastY, x, y);
+        lastX = x;
+        lastY = y;
+    }
+
+    private void addEdge(float x0, float y0, float x1, float y1){
+        //Zero length edges carry no distance or crossing
+        if(x0 == x1 && y0 == y1) return;
+        if(count + 4 > edges.length){
+            edges = Arrays.copyOf(edges, edges.length * 2);
+        }
+        edges[count++] = x0;
+        edges[count++] = y0;
+        edges[count++] = x1;
+        edges[count++] = y1;
+    }
+}
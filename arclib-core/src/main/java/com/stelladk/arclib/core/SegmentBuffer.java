@@ -0,0 +1,145 @@
+package com.stelladk.arclib.core;
+
+import java.util.Arrays;
+
+/**
+ * Reusable buffer of outline segments stored as primitive arrays.
+ * Every verb is followed by its coordinates in the points array:
+ * {@link #MOVE} and {@link #LINE} take x, y and {@link #ARC} takes the
+ * oval left, top, right, bottom followed by the start and sweep angles.
+ * Arcs follow the android.graphics.Path.arcTo semantics, so a line is
+ * implied from the current point to the start of the arc.
+ *
+ * @see ArcGeometry
+ */
+public final class SegmentBuffer {
+    private final static String TAG = "SegmentBuffer";
+
+    /**
+     * Static variable for move verbs
+     */
+    public final static int MOVE = 0;
+    /**
+     * Static variable for line verbs
+     */
+    public final static int LINE = 1;
+    /**
+     * Static variable for elliptic arc verbs
+     */
+    public final static int ARC = 2;
+    /**
+     * Static variable for close verbs
+     */
+    public final static int CLOSE = 3;
+
+    private byte[] verbs = new byte[16];
+    private float[] points = new float[64];
+    private int verbCount, pointCount;
+
+    /**
+     * Clear the buffer keeping its storage
+     */
+    public void reset(){
+        verbCount = 0;
+        pointCount = 0;
+    }
+
+    public void moveTo(float x, float y){
+        addVerb(MOVE);
+        addPoint(x);
+        addPoint(y);
+    }
+
+    public void lineTo(float x, float y){
+        addVerb(LINE);
+        addPoint(x);
+        addPoint(y);
+    }
+
+    public void arcTo(float left, float top, float right, float bottom, float startAngle, float sweepAngle){
+        addVerb(ARC);
+        addPoint(left);
+        addPoint(top);
+        addPoint(right);
+        addPoint(bottom);
+        addPoint(startAngle);
+        addPoint(sweepAngle);
+    }
+
+    public void close(){
+        addVerb(CLOSE);
+    }
+
+    /**
+     * Scale and then translate all the coordinates, angles are kept
+     * @param scale factor to multiply the coordinates with
+     * @param dx offset added to the x coordinates
+     * @param dy offset added to the y coordinates
+     */
+    public void transform(float scale, float dx, float dy){
+        int p = 0;
+        for(int i = 0; i < verbCount; i++){
+            int verb = verbs[i];
+            int count = verb == ARC ? 4 : getPointCount(verb);
+            for(int j = 0; j < count; j += 2){
+                points[p + j] = points[p + j] * scale + dx;
+                points[p + j + 1] = points[p + j + 1] * scale + dy;
+            }
+            p += getPointCount(verb);
+        }
+    }
+
+    /**
+     * @return the number of verbs in the buffer
+     */
+    public int getVerbCount(){
+        return verbCount;
+    }
+
+    /**
+     * @param index index of the verb
+     * @return one of {@link #MOVE}, {@link #LINE}, {@link #ARC} or {@link #CLOSE}
+     */
+    public int getVerb(int index){
+        return verbs[index];
+    }
+
+    /**
+     * Coordinates of all the verbs in order
+     * The array is owned by the buffer and must not be modified
+     * @return the backing points array
+     */
+    public float[] getPoints(){
+        return points;
+    }
+
+    /**
+     * @param verb one of {@link #MOVE}, {@link #LINE}, {@link #ARC} or {@link #CLOSE}
+     * @return the number of coordinates that follow the verb
+     */
+    public static int getPointCount(int verb){
+        switch(verb){
+            case MOVE:
+            case LINE:
+                return 2;
+            case ARC:
+                return 6;
+            default:
+                return 0;
+        }
+    }
+
+    private void addVerb(int verb){
+        if(verbCount == verbs.length){
+            verbs = Arrays.copyOf(verbs, verbCount * 2);
+        }
+        verbs[verbCount++] = (byte) verb;
+    }
+
+    private void addPoint(float value){
+        if(pointCount == points.length){
+            points = Arrays.copyOf(points, pointCount * 2);
+        }
+        points[pointCount++] = value;
+    }
+}
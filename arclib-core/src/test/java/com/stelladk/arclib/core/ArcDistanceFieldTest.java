@@ -0,0 +1,108 @@
+package com.stelladk.arclib.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the signed distance fields looked up for corner masks
+ */
+public class ArcDistanceFieldTest {
+    private final static int MARGIN = 4;
+
+    @Test
+    public void innerArcs_distanceIsSignedByTheOutline() {
+        //Default radius of a square is 3/8 of its side, so the corners are quarter circles
+        int size = 128;
+        float radius = size * 3 / 8f;
+        ArcDistanceField field = build(new ArcSpec(ArcSpec.INNER, ArcSpec.INNER, ArcSpec.INNER, ArcSpec.INNER),
+                size, size);
+
+        assertEquals(radius * Math.sqrt(2) - radius, field.getDistance(MARGIN, MARGIN), 0.15);
+        assertEquals(-size / 2f, field.getDistance(MARGIN + size / 2, MARGIN + size / 2), 0.05);
+        assertEquals(-4, field.getDistance(MARGIN + size / 2, MARGIN + 4), 0.05);
+        assertEquals(radius * 2 * (Math.sqrt(2) - 1), field.sample(0, 0, 2, 2), 0.3);
+    }
+
+    @Test
+    public void stretchedField_matchesTheRasterizedMask() {
+        ArcSpec spec = new ArcSpec(ArcSpec.INNER, ArcSpec.OUTER, ArcSpec.NONE, ArcSpec.INNER,
+                ArcSpec.X_AXIS, ArcSpec.Y_AXIS, ArcSpec.X_AXIS, ArcSpec.X_AXIS,
+                64, 64, 64, 64);
+        int width = 320, height = 256;
+        ArcDistanceField field = build(spec, width, height);
+
+        //The same outline at a quarter of the width and half of the height, rasterized at 8x8 samples
+        //per pixel so the reference coverage is finer than the levels of a single rasterized pixel
+        float scaleX = 0.25f, scaleY = 0.5f;
+        int scaledWidth = (int) (width * scaleX), scaledHeight = (int) (height * scaleY);
+        int fine = 8, fineWidth = scaledWidth * fine;
+        ArcGeometry geometry = new ArcGeometry();
+        SegmentBuffer segments = new SegmentBuffer();
+        geometry.set(spec, width, height);
+        geometry.emit(segments);
+        transform(segments, scaleX * fine, scaleY * fine);
+        byte[] pixels = new byte[fineWidth * scaledHeight * fine];
+        new ArcRasterizer().rasterize(segments, 0, 0, fineWidth, scaledHeight * fine, pixels, 0, fineWidth, true);
+
+        //The field is sampled 2x2 per pixel like the corner tiles of the mask cache
+        int samples = 2;
+        float maxError = 0, errorSum = 0;
+        int edgePixels = 0;
+        for(int y = 0; y < scaledHeight; y++){
+            for(int x = 0; x < scaledWidth; x++){
+                float expected = 0;
+                for(int i = 0; i < fine * fine; i++){
+                    expected += pixels[(y * fine + i / fine) * fineWidth + x * fine + i % fine] & 0xFF;
+                }
+                expected /= fine * fine;
+
+                float alpha = 0;
+                for(int i = 0; i < samples * samples; i++){
+                    float sampleX = x + (i % samples + 0.5f) / samples;
+                    float sampleY = y + (i / samples + 0.5f) / samples;
+                    float distance = field.sample(sampleX / scaleX, sampleY / scaleY, scaleX, scaleY);
+                    alpha += Math.max(0, Math.min(1, 0.5f + distance * samples));
+                }
+                alpha = alpha / (samples * samples) * 255;
+
+                float error = Math.abs(expected - alpha);
+                maxError = Math.max(maxError, error);
+                if((expected > 0 && expected < 255) || (alpha > 0 && alpha < 255)){
+                    errorSum += error;
+                    edgePixels++;
+                }
+            }
+        }
+        //Only the cusp where the outer arc meets the edge of the view is off by more than a few levels,
+        //a wrong stretch or threshold moves the whole outline and the mean with it
+        assertTrue("mean error " + errorSum / edgePixels, errorSum / edgePixels <= 5);
+        assertTrue("max error " + maxError, maxError <= 36);
+    }
+
+    private static ArcDistanceField build(ArcSpec spec, int width, int height){
+        ArcGeometry geometry = new ArcGeometry();
+        SegmentBuffer segments = new SegmentBuffer();
+        geometry.set(spec, width, height);
+        geometry.emit(segments);
+        //A margin around the view keeps the lookups near its edges inside the grid
+        return new ArcDistanceField(segments, -MARGIN, -MARGIN, width + MARGIN * 2, height + MARGIN * 2);
+    }
+
+    /**
+     * Stretch the points of the outline, arcs stay axis aligned so their ovals stretch with them
+     */
+    private static void transform(SegmentBuffer segments, float scaleX, float scaleY){
+        float[] points = segments.getPoints();
+        int p = 0;
+        for(int i = 0; i < segments.getVerbCount(); i++){
+            int verb = segments.getVerb(i);
+            int count = verb == SegmentBuffer.ARC ? 4 : SegmentBuffer.getPointCount(verb);
+            for(int j = 0; j < count; j += 2){
+                points[p + j] *= scaleX;
+                points[p + j + 1] *= scaleY;
+            }
+            p += SegmentBuffer.getPointCount(verb);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.stelladk.arclib.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the geometry resolved for the arc corners on the JVM
+ */
+public class ArcGeometryTest {
+
+    @Test
+    public void noArcs_coverTheView() {
+        ArcGeometry geometry = new ArcGeometry();
+        geometry.set(new ArcSpec(ArcSpec.NONE, ArcSpec.NONE, ArcSpec.NONE, ArcSpec.NONE), 200, 100);
+
+        assertEquals(0, geometry.getLeft());
+        assertEquals(0, geometry.getTop());
+        assertEquals(200, geometry.getRight());
+        assertEquals(100, geometry.getBottom());
+    }
+
+    @Test
+    public void defaultRadius_isThreeEighthsOfTheBody() {
+        ArcGeometry geometry = new ArcGeometry();
+        geometry.set(new ArcSpec(ArcSpec.INNER, ArcSpec.INNER, ArcSpec.INNER, ArcSpec.INNER), 200, 100);
+
+        assertEquals(75f, geometry.getRadiusX(ArcSpec.TOP_LEFT), 0f);
+        assertEquals(37.5f, geometry.getRadiusY(ArcSpec.TOP_LEFT), 0f);
+    }
+
+    @Test
+    public void outerArcs_leaveMarginsOnTheirAxis() {
+        ArcGeometry geometry = new ArcGeometry();
+        geometry.set(new ArcSpec(ArcSpec.OUTER, ArcSpec.NONE, ArcSpec.NONE, ArcSpec.OUTER,
+                ArcSpec.X_AXIS, ArcSpec.X_AXIS, ArcSpec.X_AXIS, ArcSpec.Y_AXIS,
+                20, -1, -1, 30), 200, 100);
+
+        assertEquals(20, geometry.getLeft());
+        assertEquals(0, geometry.getTop());
+        assertEquals(200, geometry.getRight());
+        assertEquals(70, geometry.getBottom());
+    }
+
+    @Test
+    public void emit_writesOneClosedContour() {
+        ArcGeometry geometry = new ArcGeometry();
+        SegmentBuffer segments = new SegmentBuffer();
+        geometry.set(new ArcSpec(ArcSpec.INNER, ArcSpec.NONE, ArcSpec.OUTER, ArcSpec.INNER,
+                ArcSpec.X_AXIS, ArcSpec.Y_AXIS, ArcSpec.Y_AXIS, ArcSpec.X_AXIS,
+                10, 10, 10, 10), 100, 100);
+        geometry.emit(segments);
+
+        assertEquals(SegmentBuffer.MOVE, segments.getVerb(0));
+        assertEquals(SegmentBuffer.CLOSE, segments.getVerb(segments.getVerbCount() - 1));
+        int arcs = 0;
+        for(int i = 0; i < segments.getVerbCount(); i++){
+            if(segments.getVerb(i) == SegmentBuffer.ARC) arcs++;
+        }
+        assertEquals(3, arcs);
+
+        //Emitting again reuses the buffer
+        int verbs = segments.getVerbCount();
+        geometry.emit(segments);
+        assertEquals(verbs, segments.getVerbCount());
+    }
+
+    @Test
+    public void cornerBounds_followTheArcType() {
+        ArcGeometry geometry = new ArcGeometry();
+        geometry.set(new ArcSpec(ArcSpec.INNER, ArcSpec.NONE, ArcSpec.OUTER, ArcSpec.OUTER,
+                ArcSpec.X_AXIS, ArcSpec.X_AXIS, ArcSpec.X_AXIS, ArcSpec.Y_AXIS,
+                10, 10, 20, 30), 200, 100);
+        float[] bounds = new float[4];
+
+        assertTrue(geometry.getCornerBounds(ArcSpec.TOP_LEFT, bounds));
+        assertArrayEquals(new float[]{20, 0, 30, 10}, bounds, 0f);
+        assertFalse(geometry.getCornerBounds(ArcSpec.TOP_RIGHT, bounds));
+        assertTrue(geometry.getCornerBounds(ArcSpec.BOTTOM_LEFT, bounds));
+        assertArrayEquals(new float[]{0, 50, 20, 70}, bounds, 0f);
+        assertTrue(geometry.getCornerBounds(ArcSpec.BOTTOM_RIGHT, bounds));
+        assertArrayEquals(new float[]{170, 70, 200, 100}, bounds, 0f);
+    }
+
+    @Test
+    public void lerp_passesThroughASquareCornerWhenTheTypeChanges() {
+        ArcGeometry from = new ArcGeometry();
+        ArcGeometry to = new ArcGeometry();
+        ArcGeometry geometry = new ArcGeometry();
+        from.set(new ArcSpec(ArcSpec.INNER, ArcSpec.NONE, ArcSpec.NONE, ArcSpec.NONE,
+                ArcSpec.X_AXIS, ArcSpec.X_AXIS, ArcSpec.X_AXIS, ArcSpec.X_AXIS, 40, -1, -1, -1), 200, 100);
+        to.set(new ArcSpec(ArcSpec.OUTER, ArcSpec.INNER, ArcSpec.NONE, ArcSpec.NONE,
+                ArcSpec.X_AXIS, ArcSpec.X_AXIS, ArcSpec.X_AXIS, ArcSpec.X_AXIS, 20, 30, -1, -1), 200, 100);
+
+        geometry.lerp(from, to, 0.25f);
+        assertEquals(ArcSpec.INNER, geometry.getArc(ArcSpec.TOP_LEFT));
+        assertEquals(20f, geometry.getRadiusX(ArcSpec.TOP_LEFT), 0.001f);
+        assertEquals(ArcSpec.INNER, geometry.getArc(ArcSpec.TOP_RIGHT));
+        assertEquals(7.5f, geometry.getRadiusX(ArcSpec.TOP_RIGHT), 0.001f);
+        assertEquals(5, geometry.getLeft());
+
+        geometry.lerp(from, to, 0.5f);
+        assertEquals(ArcSpec.NONE, geometry.getArc(ArcSpec.TOP_LEFT));
+
+        geometry.lerp(from, to, 1f);
+        assertEquals(ArcSpec.OUTER, geometry.getArc(ArcSpec.TOP_LEFT));
+        assertEquals(20f, geometry.getRadiusX(ArcSpec.TOP_LEFT), 0.001f);
+        assertEquals(to.getLeft(), geometry.getLeft());
+    }
+
+    @Test
+    public void contains_agreesWithTheRasterizedShape() {
+        ArcSpec spec = new ArcSpec(ArcSpec.INNER, ArcSpec.OUTER, ArcSpec.OUTER, ArcSpec.INNER,
+                ArcSpec.X_AXIS, ArcSpec.Y_AXIS, ArcSpec.X_AXIS, ArcSpec.Y_AXIS,
+                -1, 24, 18.5f, 30);
+        int width = 180, height = 120;
+        ArcGeometry geometry = new ArcGeometry();
+        SegmentBuffer segments = new SegmentBuffer();
+        geometry.set(spec, width, height);
+        geometry.emit(segments);
+        byte[] pixels = new byte[width * height];
+        new ArcRasterizer().rasterize(segments, 0, 0, width, height, pixels, 0, width, false);
+
+        //Partly covered pixels lie on the outline, where either answer is right
+        for(int y = 0; y < height; y++){
+            for(int x = 0; x < width; x++){
+                int coverage = pixels[y * width + x] & 0xFF;
+                if(coverage == 0 || coverage == 255){
+                    assertEquals(coverage == 255, geometry.contains(x + 0.5f, y + 0.5f));
+                }
+            }
+        }
+        assertFalse(geometry.contains(-1, height / 2f));
+        assertFalse(geometry.contains(width / 2f, height + 1));
+    }
+}
@@ -0,0 +1,141 @@
+package com.stelladk.arclib.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the coverage written by the mask rasterizer on the JVM
+ */
+public class ArcRasterizerTest {
+
+    @Test
+    public void noArcs_fillEveryPixel() {
+        byte[] pixels = rasterize(new ArcSpec(ArcSpec.NONE, ArcSpec.NONE, ArcSpec.NONE, ArcSpec.NONE),
+                40, 20, false);
+
+        for(byte pixel : pixels){
+            assertEquals(255, pixel & 0xFF);
+        }
+    }
+
+    @Test
+    public void inverse_clearsTheShape() {
+        ArcSpec spec = new ArcSpec(ArcSpec.INNER, ArcSpec.INNER, ArcSpec.INNER, ArcSpec.INNER);
+        byte[] fill = rasterize(spec, 64, 64, false);
+        byte[] mask = rasterize(spec, 64, 64, true);
+
+        for(int i = 0; i < fill.length; i++){
+            assertEquals(255, (fill[i] & 0xFF) + (mask[i] & 0xFF));
+        }
+    }
+
+    @Test
+    public void innerArcs_coverTheirArea() {
+        //Default radius of a square is 3/8 of its side, so the corners are quarter circles
+        int size = 200;
+        float radius = size * 3 / 8f;
+        byte[] pixels = rasterize(new ArcSpec(ArcSpec.INNER, ArcSpec.INNER, ArcSpec.INNER, ArcSpec.INNER),
+                size, size, false);
+
+        double expected = size * size - (4 - Math.PI) * radius * radius;
+        assertEquals(expected, coverage(pixels), expected * 0.005);
+        assertEquals(0, pixels[0]);
+        assertEquals(255, pixels[size / 2 * size + size / 2] & 0xFF);
+    }
+
+    @Test
+    public void window_matchesTheFullMask() {
+        ArcSpec spec = new ArcSpec(ArcSpec.OUTER, ArcSpec.INNER, ArcSpec.NONE, ArcSpec.OUTER,
+                ArcSpec.X_AXIS, ArcSpec.X_AXIS, ArcSpec.X_AXIS, ArcSpec.Y_AXIS);
+        byte[] full = rasterize(spec, 120, 80, true);
+
+        ArcGeometry geometry = new ArcGeometry();
+        SegmentBuffer segments = new SegmentBuffer();
+        geometry.set(spec, 120, 80);
+        geometry.emit(segments);
+        byte[] window = new byte[30 * 20];
+        new ArcRasterizer().rasterize(segments, 10, 50, 30, 20, window, 0, 30, true);
+
+        for(int row = 0; row < 20; row++){
+            for(int column = 0; column < 30; column++){
+                assertEquals(full[(row + 50) * 120 + column + 10], window[row * 30 + column]);
+            }
+        }
+    }
+
+    @Test
+    public void outsideTheCorners_bodyIsKeptAndMarginsCleared() {
+        ArcSpec spec = new ArcSpec(ArcSpec.INNER, ArcSpec.OUTER, ArcSpec.OUTER, ArcSpec.INNER,
+                ArcSpec.X_AXIS, ArcSpec.Y_AXIS, ArcSpec.X_AXIS, ArcSpec.X_AXIS,
+                -1, 15.5f, -1, 12.25f);
+        int width = 160, height = 90;
+        byte[] pixels = rasterize(spec, width, height, true);
+
+        ArcGeometry geometry = new ArcGeometry();
+        geometry.set(spec, width, height);
+        float[][] corners = new float[4][4];
+        for(int corner = 0; corner < 4; corner++){
+            if(!geometry.getCornerBounds(corner, corners[corner])) corners[corner] = null;
+        }
+
+        for(int y = 0; y < height; y++){
+            for(int x = 0; x < width; x++){
+                boolean inCorner = false;
+                for(float[] bounds : corners){
+                    if(bounds != null && x + 1 > bounds[0] && x < bounds[2] && y + 1 > bounds[1] && y < bounds[3]){
+                        inCorner = true;
+                    }
+                }
+                if(inCorner) continue;
+
+                boolean inBody = x >= geometry.getLeft() && x < geometry.getRight()
+                        && y >= geometry.getTop() && y < geometry.getBottom();
+                assertEquals(inBody ? 0 : 255, pixels[y * width + x] & 0xFF);
+            }
+        }
+    }
+
+    @Test
+    public void scaledPath_matchesTheAverageOfTheFullMask() {
+        ArcSpec spec = new ArcSpec(ArcSpec.INNER, ArcSpec.OUTER, ArcSpec.INNER, ArcSpec.NONE,
+                ArcSpec.X_AXIS, ArcSpec.Y_AXIS, ArcSpec.X_AXIS, ArcSpec.X_AXIS);
+        int width = 96, height = 64;
+        byte[] full = rasterize(spec, width, height, true);
+
+        ArcGeometry geometry = new ArcGeometry();
+        SegmentBuffer segments = new SegmentBuffer();
+        geometry.set(spec, width, height);
+        geometry.emit(segments);
+        segments.transform(0.5f, 0, 0);
+        byte[] half = new byte[width / 2 * height / 2];
+        new ArcRasterizer().rasterize(segments, 0, 0, width / 2, height / 2, half, 0, width / 2, true);
+
+        for(int y = 0; y < height / 2; y++){
+            for(int x = 0; x < width / 2; x++){
+                int sum = (full[2 * y * width + 2 * x] & 0xFF) + (full[2 * y * width + 2 * x + 1] & 0xFF)
+                        + (full[(2 * y + 1) * width + 2 * x] & 0xFF) + (full[(2 * y + 1) * width + 2 * x + 1] & 0xFF);
+                assertEquals(sum / 4f, half[y * width / 2 + x] & 0xFF, 24);
+            }
+        }
+    }
+
+    private static byte[] rasterize(ArcSpec spec, int width, int height, boolean inverse){
+        ArcGeometry geometry = new ArcGeometry();
+        SegmentBuffer segments = new SegmentBuffer();
+        geometry.set(spec, width, height);
+        geometry.emit(segments);
+
+        byte[] pixels = new byte[width * height];
+        new ArcRasterizer().rasterize(segments, 0, 0, width, height, pixels, 0, width, inverse);
+        return pixels;
+    }
+
+    private static double coverage(byte[] pixels){
+        double sum = 0;
+        for(byte pixel : pixels){
+            sum += (pixel & 0xFF) / 255.0;
+        }
+        return sum;
+    }
+}